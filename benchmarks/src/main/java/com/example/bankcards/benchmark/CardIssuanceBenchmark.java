@@ -0,0 +1,108 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankApp;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Массовый выпуск карт на встроенном PostgreSQL через полный контекст приложения:
+ * пачка из {@value #CARDS} карт сохраняется одной транзакцией, результат — карт в секунду.
+ * batchSize=1 воспроизводит прежнее поведение IDENTITY (отдельный INSERT на строку),
+ * batchSize=50 — пакетные INSERT с reWriteBatchedInserts и id из последовательности блоками по 50.
+ * Сам IDENTITY задан аннотацией сущности и параметром не переключается.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CardIssuanceBenchmark {
+
+    private static final int CARDS = 1000;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private CardRepository cardRepository;
+    private TransactionTemplate transactionTemplate;
+    private User owner;
+    private long sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        // аргументы командной строки, а не defaults: они должны перекрыть application.yml
+        context = new SpringApplicationBuilder(BankApp.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres",
+                        "--spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=" + (batchSize > 1),
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cards.blind-index.key=" + LoadDataGenerator.DEV_BLIND_INDEX_KEY,
+                        "--logging.level.root=WARN");
+        cardRepository = context.getBean(CardRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        owner = context.getBean(UserRepository.class)
+                .save(User.builder().username("benchmark").password("x").role(Role.USER).build());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARDS)
+    public List<Card> issueCards() {
+        List<Card> cards = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            cards.add(Card.builder()
+                    .cardNumber(String.format("4%015d", sequence++))
+                    .ownerName(owner.getUsername())
+                    .balance(BigDecimal.ZERO)
+                    .status(CardStatus.ACTIVE)
+                    .expiryDate(LocalDate.now().plusYears(4))
+                    .owner(owner)
+                    .build());
+        }
+        return transactionTemplate.execute(status -> cardRepository.saveAll(cards));
+    }
+}
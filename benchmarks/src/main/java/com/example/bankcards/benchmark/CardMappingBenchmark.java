@@ -0,0 +1,70 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.CardMapper;
+import com.example.bankcards.util.CardMapperImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение CardResponseDTO: маппинг сущности через CardMapper, маска номера Card.getMaskedNumber
+ * и конструктор JPQL-проекции, которым теперь строятся списки карт владельца (projection).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardMappingBenchmark {
+
+    private CardMapper mapper;
+    private Card card;
+    private LocalDate expiryDate;
+
+    @Setup
+    public void setUp() {
+        mapper = new CardMapperImpl();
+        expiryDate = LocalDate.now().plusYears(4);
+        card = Card.builder()
+                .id(1L)
+                .cardNumber("4000123412341234")
+                .cardLast4("1234")
+                .ownerName("IVAN IVANOV")
+                .balance(new BigDecimal("1000.00"))
+                .status(CardStatus.ACTIVE)
+                .expiryDate(expiryDate)
+                .build();
+    }
+
+    @Benchmark
+    public CardResponseDTO toDto() {
+        return mapper.toDto(card);
+    }
+
+    @Benchmark
+    public String maskedNumber() {
+        return card.getMaskedNumber();
+    }
+
+    @Benchmark
+    public CardResponseDTO projection() {
+        return new CardResponseDTO(card.getId(), card.getCardLast4(), card.getOwnerName(), card.getBalance(),
+                card.getStatus(), expiryDate);
+    }
+}
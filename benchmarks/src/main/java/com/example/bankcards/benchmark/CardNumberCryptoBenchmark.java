@@ -0,0 +1,71 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardNumberCryptoConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Шифрование/расшифровка номера карты: текущий конвертер с пулом шифров
+ * против прежней схемы с Cipher.getInstance и новым ключом на каждый вызов (legacy*).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CardNumberCryptoBenchmark {
+
+    private static final String CARD_NUMBER = "4000123412341234";
+    private static final String SECRET_KEY = "1234567890123456";
+
+    private CardNumberCryptoConverter converter;
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        converter = new CardNumberCryptoConverter();
+        encrypted = converter.convertToDatabaseColumn(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return converter.convertToDatabaseColumn(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return converter.convertToEntityAttribute(encrypted);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(), "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(CARD_NUMBER.getBytes()));
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(), "AES"));
+        return new String(cipher.doFinal(Base64.getDecoder().decode(encrypted)));
+    }
+}
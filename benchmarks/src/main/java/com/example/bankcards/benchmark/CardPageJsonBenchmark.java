@@ -0,0 +1,65 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.CardStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответа GET /api/v1/user/cards — Page&lt;CardResponseDTO&gt; — в JSON.
+ * ObjectMapper собирается Jackson2ObjectMapperBuilder с настройками по умолчанию, как в приложении
+ * (модуль java.time, даты строкой). Размер страницы — параметр pageSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardPageJsonBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private Page<CardResponseDTO> page;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        LocalDate expiryDate = LocalDate.now().plusYears(4);
+        List<CardResponseDTO> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new CardResponseDTO((long) i + 1, String.format("%04d", i), "IVAN IVANOV",
+                    new BigDecimal("1000.00"), CardStatus.ACTIVE, expiryDate));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankApp;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перевод между своими картами CardService.transferBetweenOwnCards через полный контекст приложения
+ * на встроенной H2 (как в профиле test): блокировка пары карт, атомарные debit/credit, фиксация транзакции.
+ * За вызов выполняются два встречных перевода, поэтому балансы не меняются между итерациями.
+ * Показывает накладные расходы Spring/Hibernate на перевод; поведение блокировок PostgreSQL H2 не воспроизводит.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardTransferBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private Long userId;
+    private Long firstCardId;
+    private Long secondCardId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankApp.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cards.blind-index.key=" + LoadDataGenerator.DEV_BLIND_INDEX_KEY,
+                        "--spring.liquibase.enabled=false",
+                        "--logging.level.root=WARN");
+        cardService = context.getBean(CardService.class);
+        User owner = context.getBean(UserRepository.class)
+                .save(User.builder().username("benchmark").password("x").role(Role.USER).build());
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        userId = owner.getId();
+        firstCardId = cardRepository.save(card(owner, "4000000000000001")).getId();
+        secondCardId = cardRepository.save(card(owner, "4000000000000002")).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void transfer() {
+        cardService.transferBetweenOwnCards(userId, firstCardId, secondCardId, AMOUNT);
+        cardService.transferBetweenOwnCards(userId, secondCardId, firstCardId, AMOUNT);
+    }
+
+    private static Card card(User owner, String number) {
+        return Card.builder()
+                .cardNumber(number)
+                .ownerName(owner.getUsername())
+                .balance(new BigDecimal("1000000.00"))
+                .status(CardStatus.ACTIVE)
+                .expiryDate(LocalDate.now().plusYears(4))
+                .owner(owner)
+                .build();
+    }
+}
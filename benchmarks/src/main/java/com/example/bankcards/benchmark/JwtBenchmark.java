@@ -0,0 +1,86 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.JwtService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Выпуск и проверка JWT: кэш проверенных токенов (validateCached), разбор заранее
+ * построенным парсером — цена промаха кэша (validatePrebuiltParser) и прежняя схема (legacyValidate) — три разбора токена
+ * с новым ключом и парсером на каждый, как делали extractUsername + isTokenValid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final long EXPIRATION = 86_400_000;
+
+    private JwtService cached;
+    private JwtParser parser;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtService(SECRET, EXPIRATION, true, 10_000);
+        parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build();
+        user = User.builder().id(1L).username("benchmark").password("x").role(Role.USER).build();
+        token = cached.generateToken(user, 0);
+    }
+
+    @Benchmark
+    public String generate() {
+        return cached.generateToken(user, 0);
+    }
+
+    @Benchmark
+    public Claims validateCached() {
+        return cached.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims validatePrebuiltParser() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public boolean legacyValidate() {
+        String username = legacyParse(token).getSubject();
+        return username.equals(legacyParse(token).getSubject()) && !legacyParse(token).getExpiration().before(new Date());
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import com.example.bankcards.util.CardNumberCryptoConverter;
+import com.example.bankcards.util.CardNumbers;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Генератор синтетических данных для нагрузочного теста (loadtest/e2e.js): N пользователей и M карт
+ * загружаются в PostgreSQL через COPY. Схема создается миграциями Liquibase приложения, поэтому
+ * достаточно пустой базы docker-compose (docker-compose up db) или встроенного PostgreSQL (--embedded).
+ *
+ * <p>Распределения: число карт на клиента с тяжелым хвостом (владелец выбирается как N·u², u — равномерное,
+ * так что первые клиенты — «корпоративные» с тысячами карт, у остальных единицы); статусы 85% ACTIVE,
+ * 10% BLOCKED, 5% EXPIRED; у 1% активных карт срок уже истек (работа для задачи истечения срока);
+ * балансы логнормальные. Пользователи — {@code <prefix>1..<prefix>N} с одним паролем.
+ *
+ * <p>Номера карт шифруются тем же конвертером, что и в приложении, с card_last4 и слепым индексом.
+ * Id берутся блоками из cards_seq/users_seq так же, как их выдает пул Hibernate, поэтому приложение
+ * может работать с базой во время и после загрузки.
+ */
+public final class LoadDataGenerator {
+
+    private static final String CHANGELOG = "classpath:db/migration/db.changelog-master.yaml";
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    /** Ключ слепого индекса из docker-compose: приложение должно считать card_number_hash тем же ключом. */
+    static final String DEV_BLIND_INDEX_KEY = "5A7134743777217A25432A462D4A614E645267556B58703273357638792F423F";
+
+    private static final String[] FIRST_NAMES = {
+            "IVAN", "PETR", "ANNA", "OLGA", "SERGEY", "MARIA", "DMITRY", "ELENA", "ALEXEY", "NATALIA"};
+    private static final String[] LAST_NAMES = {
+            "IVANOV", "PETROV", "SMIRNOV", "KUZNETSOV", "POPOV", "VASILIEV", "SOKOLOV", "MIKHAILOV",
+            "NOVIKOV", "FEDOROV", "MOROZOV", "VOLKOV", "ALEKSEEV", "LEBEDEV", "SEMENOV", "EGOROV"};
+
+    private final int users;
+    private final int cards;
+    private final String prefix;
+    private final String password;
+    private final SplittableRandom random;
+    private final CardNumberBlindIndex blindIndex;
+
+    private LoadDataGenerator(Map<String, String> args) {
+        this.users = Integer.parseInt(args.getOrDefault("users", "100000"));
+        this.cards = Integer.parseInt(args.getOrDefault("cards", "1000000"));
+        this.prefix = args.getOrDefault("prefix", "user");
+        this.password = args.getOrDefault("user-password", "password");
+        this.random = new SplittableRandom(Long.parseLong(args.getOrDefault("seed", "42")));
+        this.blindIndex = new CardNumberBlindIndex(args.getOrDefault("blind-index-key",
+                System.getenv().getOrDefault("CARD_BLIND_INDEX_KEY", DEV_BLIND_INDEX_KEY)));
+    }
+
+    /**
+     * Аргументы {@code --key=value}: users, cards, prefix, user-password, seed;
+     * url/username/password — база (по умолчанию как в docker-compose);
+     * embedded — поднять встроенный PostgreSQL на порту port (по умолчанию 15432) и оставить его работать;
+     * blind-index-key — ключ слепого индекса номеров (по умолчанию CARD_BLIND_INDEX_KEY, иначе ключ docker-compose).
+     */
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        EmbeddedPostgres postgres = null;
+        DataSource dataSource;
+        if (args.containsKey("embedded")) {
+            int port = Integer.parseInt(args.getOrDefault("port", "15432"));
+            postgres = EmbeddedPostgres.builder().setPort(port).start();
+            dataSource = postgres.getPostgresDatabase();
+            System.out.println("Встроенный PostgreSQL: " + postgres.getJdbcUrl("postgres", "postgres"));
+        } else {
+            dataSource = new DriverManagerDataSource(
+                    args.getOrDefault("url", "jdbc:postgresql://localhost:5432/bank_db"),
+                    args.getOrDefault("username", "bank_user"),
+                    args.getOrDefault("password", "bank_password"));
+        }
+
+        migrate(dataSource);
+        new LoadDataGenerator(args).load(dataSource);
+
+        if (postgres != null) {
+            System.out.println("Запуск приложения: SPRING_DATASOURCE_URL=" + postgres.getJdbcUrl("postgres", "postgres")
+                    + " SPRING_DATASOURCE_USERNAME=postgres SPRING_DATASOURCE_PASSWORD=postgres"
+                    + " CARD_BLIND_INDEX_KEY=<ключ генератора>");
+            System.out.println("База работает до Ctrl+C");
+            Thread.currentThread().join();
+        }
+    }
+
+    private static void migrate(DataSource dataSource) throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(CHANGELOG);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+
+    private void load(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            if (exists(connection, prefix + "1")) {
+                throw new IllegalStateException("Пользователь " + prefix + "1 уже есть: данные загружены, "
+                        + "для новой порции укажите другой --prefix");
+            }
+            long started = System.nanoTime();
+            long[] userIds = loadUsers(connection);
+            connection.commit();
+            System.out.printf("Пользователей: %d за %d с%n", users, seconds(started));
+
+            started = System.nanoTime();
+            loadCards(connection, userIds);
+            resetHashState(connection);
+            connection.commit();
+            System.out.printf("Карт: %d за %d с%n", cards, seconds(started));
+
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE users");
+                statement.execute("ANALYZE cards");
+            }
+        }
+    }
+
+    private long[] loadUsers(Connection connection) throws SQLException {
+        // один хэш на всех: BCrypt на каждую строку занял бы часы
+        String hash = new BCryptPasswordEncoder(10).encode(password);
+        long[] ids = allocateIds(connection, "users_seq", users);
+        CopyIn copy = copyIn(connection, "COPY users (id, username, password, role) FROM STDIN");
+        StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 1024);
+        for (int i = 0; i < users; i++) {
+            buffer.append(ids[i]).append('\t')
+                    .append(prefix).append(i + 1).append('\t')
+                    .append(hash).append('\t')
+                    .append("USER").append('\n');
+            flushIfFull(copy, buffer);
+        }
+        finish(copy, buffer);
+        return ids;
+    }
+
+    private void loadCards(Connection connection, long[] userIds) throws SQLException {
+        CardNumberCryptoConverter crypto = new CardNumberCryptoConverter();
+        LocalDate today = LocalDate.now();
+        long[] ids = allocateIds(connection, "cards_seq", cards);
+        CopyIn copy = copyIn(connection, "COPY cards (id, card_number, card_last4, card_number_hash, owner_name, "
+                + "balance, status, expiry_date, user_id) FROM STDIN");
+        StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 1024);
+        int step = Math.max(1, cards / 10);
+        for (int i = 0; i < cards; i++) {
+            String number = "4" + String.format("%015d", random.nextLong(1_000_000_000_000_000L));
+            CardStatus status = status();
+            buffer.append(ids[i]).append('\t')
+                    .append(crypto.convertToDatabaseColumn(number)).append('\t')
+                    .append(CardNumbers.lastFour(number)).append('\t')
+                    .append(blindIndex.hash(number)).append('\t')
+                    .append(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).append(' ')
+                    .append(LAST_NAMES[random.nextInt(LAST_NAMES.length)]).append('\t')
+                    .append(balance().toPlainString()).append('\t')
+                    .append(status.name()).append('\t')
+                    .append(expiryDate(today, status)).append('\t')
+                    .append(userIds[owner()]).append('\n');
+            flushIfFull(copy, buffer);
+            if ((i + 1) % step == 0) {
+                System.out.printf("  карты: %d / %d%n", i + 1, cards);
+            }
+        }
+        finish(copy, buffer);
+    }
+
+    /**
+     * Карты посчитаны ключом генератора: если приложение отметило индекс посчитанным другим ключом,
+     * отметка сбрасывается, и приложение пересчитает индекс своим.
+     */
+    private void resetHashState(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE card_number_hash_state "
+                + "SET key_fingerprint = NULL WHERE key_fingerprint IS DISTINCT FROM ?")) {
+            statement.setString(1, blindIndex.fingerprint());
+            statement.executeUpdate();
+        }
+    }
+
+    private int owner() {
+        double u = random.nextDouble();
+        return (int) (users * u * u);
+    }
+
+    private CardStatus status() {
+        int roll = random.nextInt(100);
+        if (roll < 85) return CardStatus.ACTIVE;
+        if (roll < 95) return CardStatus.BLOCKED;
+        return CardStatus.EXPIRED;
+    }
+
+    private LocalDate expiryDate(LocalDate today, CardStatus status) {
+        if (status == CardStatus.EXPIRED || (status == CardStatus.ACTIVE && random.nextInt(100) == 0)) {
+            return today.minusDays(1 + random.nextInt(730));
+        }
+        return today.plusDays(1 + random.nextInt(5 * 365));
+    }
+
+    private BigDecimal balance() {
+        // медиана около 3000, редкие остатки в сотни тысяч
+        double gaussian = nextGaussian();
+        return BigDecimal.valueOf(Math.exp(8 + 1.5 * gaussian)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private double nextGaussian() {
+        // Box–Muller: у SplittableRandom нет nextGaussian в Java 17
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    /**
+     * Id блоками пула Hibernate: значение hi из последовательности закрепляет за вызывающим [hi-49, hi].
+     */
+    private static long[] allocateIds(Connection connection, String sequence, int count) throws SQLException {
+        long[] ids = new long[count];
+        int blocks = (count + Card.ID_ALLOCATION_SIZE - 1) / Card.ID_ALLOCATION_SIZE;
+        int filled = 0;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)")) {
+            statement.setInt(1, blocks);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next() && filled < count) {
+                    long hi = rs.getLong(1);
+                    for (long id = Math.max(1, hi - Card.ID_ALLOCATION_SIZE + 1); id <= hi && filled < count; id++) {
+                        ids[filled++] = id;
+                    }
+                }
+            }
+        }
+        if (filled < count) {
+            // первый блок после setval может оказаться короче
+            long[] rest = allocateIds(connection, sequence, count - filled);
+            System.arraycopy(rest, 0, ids, filled, rest.length);
+        }
+        return ids;
+    }
+
+    private static boolean exists(Connection connection, String username) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM users WHERE username = ?")) {
+            statement.setString(1, username);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static CopyIn copyIn(Connection connection, String sql) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+    }
+
+    private static void flushIfFull(CopyIn copy, StringBuilder buffer) throws SQLException {
+        if (buffer.length() >= FLUSH_BYTES) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    private static void finish(CopyIn copy, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        copy.endCopy();
+    }
+
+    private static long seconds(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000_000L;
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Ожидается --ключ=значение: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                args.put(arg.substring(2), "true");
+            } else {
+                args.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return args;
+    }
+}
@@ -0,0 +1,44 @@
+// Нагрузочный сценарий k6: одновременные клиенты листают свои карты и выполняют переводы.
+// Запуск (приложение и БД уже подняты, пользователи созданы, например LoadDataGenerator):
+//   k6 run -e BASE_URL=http://localhost:8080 -e USERNAME=user1 -e PASSWORD=password loadtest/cards-list.js
+// Сравнение режимов: приложение запускается с SPRING_THREADS_VIRTUAL_ENABLED=true и =false
+// на одном и том же DB_POOL_SIZE, сценарий прогоняется для каждого; сравниваются http_reqs (запросов/с)
+// и p(99) http_req_duration из итоговой сводки.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '5000');
+
+export const options = {
+    scenarios: {
+        cards: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '10s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(90)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const res = http.post(`${BASE_URL}/api/v1/auth/login`,
+        JSON.stringify({ username: __ENV.USERNAME || 'user1', password: __ENV.PASSWORD || 'password' }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'login 200': (r) => r.status === 200 });
+    return { token: res.body };
+}
+
+export default function (data) {
+    const params = { headers: { Authorization: `Bearer ${data.token}` } };
+    const res = http.get(`${BASE_URL}/api/v1/user/cards?after=&size=20`, params);
+    check(res, { 'cards 200': (r) => r.status === 200 });
+}
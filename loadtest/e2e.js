@@ -0,0 +1,182 @@
+// Сквозной нагрузочный сценарий k6 на синтетических данных LoadDataGenerator (см. README_Bank_rest.md).
+// Открытая модель нагрузки: каждая операция идет со своей постоянной частотой (constant-arrival-rate),
+// поэтому медленные ответы не снижают подаваемую нагрузку и не прячут хвост задержек.
+// Запуск (данные загружены генератором с теми же USERS/PREFIX/PASSWORD, приложение поднято):
+//   k6 run -e BASE_URL=http://localhost:8080 -e USERS=100000 -e ADMIN_PASSWORD=... loadtest/e2e.js
+// Частоты (запросов/с): LOGIN_RATE, CARDS_RATE, SEARCH_RATE, TRANSFER_RATE, ADMIN_RATE; длительность — DURATION.
+// Без ADMIN_PASSWORD сценарий администратора не запускается.
+// Итог: пропускная способность, доля ошибок и p50/p99/p99.9 по каждой операции (stdout и loadtest-summary.json).
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERS = parseInt(__ENV.USERS || '100000');
+const PREFIX = __ENV.PREFIX || 'user';
+const PASSWORD = __ENV.PASSWORD || 'password';
+const DURATION = __ENV.DURATION || '5m';
+const ADMIN_USERNAME = __ENV.ADMIN_USERNAME || 'admin';
+const ADMIN_PASSWORD = __ENV.ADMIN_PASSWORD;
+
+// Фамилии из LoadDataGenerator: поиск по имени владельца всегда находит карты
+const LAST_NAMES = ['IVANOV', 'PETROV', 'SMIRNOV', 'KUZNETSOV', 'POPOV', 'VOLKOV'];
+
+const ENDPOINTS = ['login', 'cards', 'search', 'transfer']
+    .concat(ADMIN_PASSWORD ? ['admin_users', 'admin_cards'] : []);
+
+function scenario(exec, rate) {
+    return {
+        executor: 'constant-arrival-rate',
+        exec: exec,
+        rate: parseInt(rate),
+        timeUnit: '1s',
+        duration: DURATION,
+        preAllocatedVUs: Math.max(10, parseInt(rate)),
+        maxVUs: Math.max(100, parseInt(rate) * 10),
+    };
+}
+
+const scenarios = {
+    login: scenario('login', __ENV.LOGIN_RATE || '20'),
+    cards: scenario('cards', __ENV.CARDS_RATE || '200'),
+    search: scenario('search', __ENV.SEARCH_RATE || '50'),
+    transfer: scenario('transfer', __ENV.TRANSFER_RATE || '50'),
+};
+if (ADMIN_PASSWORD) {
+    scenarios.admin = scenario('admin', __ENV.ADMIN_RATE || '5');
+}
+
+// Порог по каждой операции нужен, чтобы k6 посчитал метрики с тегом endpoint отдельно
+const thresholds = { http_req_failed: ['rate<0.01'] };
+for (const endpoint of ENDPOINTS) {
+    thresholds[`http_req_duration{endpoint:${endpoint}}`] = ['max>=0'];
+    thresholds[`http_reqs{endpoint:${endpoint}}`] = ['count>=0'];
+    thresholds[`http_req_failed{endpoint:${endpoint}}`] = ['rate>=0'];
+}
+
+export const options = {
+    scenarios: scenarios,
+    thresholds: thresholds,
+    summaryTrendStats: ['avg', 'p(50)', 'p(99)', 'p(99.9)', 'max'],
+};
+
+// Состояние виртуального пользователя: токен и две активные карты для перевода
+let session = null;
+
+function randomUser() {
+    return PREFIX + (1 + Math.floor(Math.random() * USERS));
+}
+
+function authenticate(username, password, endpoint) {
+    const res = http.post(`${BASE_URL}/api/v1/auth/login`,
+        JSON.stringify({ username: username, password: password }),
+        { headers: { 'Content-Type': 'application/json' }, tags: { endpoint: endpoint } });
+    check(res, { 'login 200': (r) => r.status === 200 });
+    return res.status === 200 ? res.body : null;
+}
+
+function auth(endpoint) {
+    return { headers: { Authorization: `Bearer ${session.token}` }, tags: { endpoint: endpoint } };
+}
+
+// Вход вне измеряемых операций: тег setup не попадает в итоговую таблицу
+function ensureSession() {
+    if (session === null) {
+        const token = authenticate(randomUser(), PASSWORD, 'setup');
+        session = token ? { token: token, cards: null, forward: true } : null;
+    }
+    return session !== null;
+}
+
+export function login() {
+    authenticate(randomUser(), PASSWORD, 'login');
+}
+
+export function cards() {
+    if (!ensureSession()) return;
+    const res = http.get(`${BASE_URL}/api/v1/user/cards?after=&size=20`, auth('cards'));
+    check(res, { 'cards 200': (r) => r.status === 200 });
+}
+
+export function search() {
+    if (!ensureSession()) return;
+    // поровну: последние 4 цифры (idx_card_user_last4) и часть имени (триграммный индекс)
+    const query = Math.random() < 0.5
+        ? String(Math.floor(Math.random() * 10000)).padStart(4, '0')
+        : LAST_NAMES[Math.floor(Math.random() * LAST_NAMES.length)];
+    const res = http.get(`${BASE_URL}/api/v1/user/cards?search=${query}&page=0&size=20`, auth('search'));
+    check(res, { 'search 200': (r) => r.status === 200 });
+}
+
+export function transfer() {
+    if (!ensureSession()) return;
+    if (session.cards === null) {
+        const res = http.get(`${BASE_URL}/api/v1/user/cards?status=ACTIVE&after=&size=2`, auth('setup'));
+        session.cards = res.status === 200 ? res.json('content').map((c) => c.id) : [];
+    }
+    if (session.cards.length < 2) {
+        // у клиента одна активная карта: переводу не из чего выбирать, берем другого клиента
+        session = null;
+        return;
+    }
+    // направление чередуется, чтобы балансы не уходили в ноль
+    const [a, b] = session.forward ? session.cards : [session.cards[1], session.cards[0]];
+    session.forward = !session.forward;
+    const params = auth('transfer');
+    params.headers['Content-Type'] = 'application/json';
+    const res = http.post(`${BASE_URL}/api/v1/user/cards/transfer`,
+        JSON.stringify({ fromCardId: a, toCardId: b, amount: 0.01 }), params);
+    check(res, { 'transfer 200': (r) => r.status === 200 });
+}
+
+export function admin() {
+    if (session === null) {
+        const token = authenticate(ADMIN_USERNAME, ADMIN_PASSWORD, 'setup');
+        if (!token) return;
+        session = { token: token };
+    }
+    if (Math.random() < 0.5) {
+        const prefix = PREFIX + (1 + Math.floor(Math.random() * 99));
+        const res = http.get(`${BASE_URL}/api/v1/admin/users?role=USER&usernamePrefix=${prefix}&after=&size=20`,
+            auth('admin_users'));
+        check(res, { 'admin users 200': (r) => r.status === 200 });
+    } else {
+        const res = http.get(`${BASE_URL}/api/v1/admin/cards?after=&size=20`, auth('admin_cards'));
+        check(res, { 'admin cards 200': (r) => r.status === 200 });
+    }
+}
+
+function format(value) {
+    return value === undefined ? '-' : value.toFixed(1);
+}
+
+export function handleSummary(data) {
+    const seconds = data.state.testRunDurationMs / 1000;
+    const rows = {};
+    const lines = [
+        'endpoint        req/s     errors   p50 ms   p99 ms   p99.9 ms',
+    ];
+    for (const endpoint of ENDPOINTS) {
+        const duration = data.metrics[`http_req_duration{endpoint:${endpoint}}`];
+        const reqs = data.metrics[`http_reqs{endpoint:${endpoint}}`];
+        const failed = data.metrics[`http_req_failed{endpoint:${endpoint}}`];
+        if (!duration || !reqs) continue;
+        const row = {
+            rps: reqs.values.count / seconds,
+            errorRate: failed ? failed.values.rate : 0,
+            p50: duration.values['p(50)'],
+            p99: duration.values['p(99)'],
+            p999: duration.values['p(99.9)'],
+        };
+        rows[endpoint] = row;
+        lines.push(endpoint.padEnd(14)
+            + format(row.rps).padStart(7)
+            + (format(row.errorRate * 100) + '%').padStart(11)
+            + format(row.p50).padStart(9)
+            + format(row.p99).padStart(9)
+            + format(row.p999).padStart(11));
+    }
+    return {
+        stdout: lines.join('\n') + '\n',
+        'loadtest-summary.json': JSON.stringify({ durationSeconds: seconds, endpoints: rows }, null, 2),
+    };
+}
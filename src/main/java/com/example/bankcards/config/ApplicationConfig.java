@@ -1,18 +1,22 @@
 package com.example.bankcards.config;
 
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CachedUserDetailsService;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -26,17 +30,29 @@ public class ApplicationConfig {
 
     private final UserRepository userRepository;
 
+    /**
+     * Пользователи кэшируются в памяти; тип бина — CachedUserDetailsService,
+     * чтобы Spring Boot привязал его метрики (MeterBinder).
+     */
     @Bean
-    public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден: " + username));
+    public CachedUserDetailsService userDetailsService(
+            @Value("${spring.security.user-cache.max-size:100000}") long maxSize,
+            @Value("${spring.security.user-cache.ttl:10m}") Duration ttl) {
+        return new CachedUserDetailsService(userRepository, maxSize, ttl);
     }
 
+    /**
+     * После успешного входа хэш, посчитанный с меньшей стоимостью, чем настроенная,
+     * пересчитывается и сохраняется через UserDetailsPasswordService.
+     */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                         PasswordEncoder passwordEncoder,
+                                                         UserDetailsPasswordService passwordService) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
+        authProvider.setUserDetailsPasswordService(passwordService);
         return authProvider;
     }
 
@@ -46,7 +62,7 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${spring.security.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
\ No newline at end of file
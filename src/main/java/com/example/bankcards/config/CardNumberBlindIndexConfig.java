@@ -0,0 +1,26 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.CardNumberBlindIndex;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Слепой индекс номеров карт с ключом из spring.cards.blind-index.key.
+ * Значения по умолчанию нет: без ключа приложение не стартует.
+ */
+@Configuration
+public class CardNumberBlindIndexConfig {
+
+    static final String KEY_PROPERTY = "spring.cards.blind-index.key";
+
+    @Bean
+    public CardNumberBlindIndex cardNumberBlindIndex(@Value("${" + KEY_PROPERTY + ":}") String key) {
+        if (key.isBlank()) {
+            throw new IllegalStateException("Не задан ключ слепого индекса номеров карт: "
+                    + KEY_PROPERTY + " (переменная окружения CARD_BLIND_INDEX_KEY)");
+        }
+        return new CardNumberBlindIndex(key);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardBulkJobDTO;
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.entity.CardBulkJob;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.service.CardBulkIssueService;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/admin/cards:bulk")
+@RequiredArgsConstructor
+@Tag(name = "Admin Card API", description = "Администрирование карт всех пользователей")
+public class AdminCardBulkController {
+
+    private final CardBulkIssueService bulkIssueService;
+
+    @PostMapping(consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Массовый выпуск карт из NDJSON или CSV (фоновое задание)")
+    public ResponseEntity<CardBulkJobDTO> submit(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                 InputStream body) throws IOException {
+        CardBulkFormat format = CardBulkFormat.of(contentType)
+                .orElseThrow(() -> new BadRequestException("Неподдерживаемый формат: " + contentType));
+        CardBulkJob job = bulkIssueService.submit(body, format);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").build(job.getId()))
+                .body(toDto(job));
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Прогресс задания массового выпуска")
+    public ResponseEntity<CardBulkJobDTO> getJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(toDto(bulkIssueService.getJob(jobId)));
+    }
+
+    @GetMapping(value = "/{jobId}/errors", produces = "text/csv")
+    @Operation(summary = "Выгрузка ошибок по строкам входного файла (CSV)")
+    public ResponseEntity<StreamingResponseBody> getErrors(@PathVariable UUID jobId) {
+        bulkIssueService.getJob(jobId);
+        StreamingResponseBody body = out -> bulkIssueService.writeErrors(jobId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cards-bulk-" + jobId + "-errors.csv\"")
+                .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .body(body);
+    }
+
+    private static CardBulkJobDTO toDto(CardBulkJob job) {
+        return CardBulkJobDTO.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .format(job.getFormat())
+                .processedLines(job.getProcessedLines())
+                .issuedCards(job.getIssuedCards())
+                .failedLines(job.getFailedLines())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardResponseDTO;
 import com.example.bankcards.dto.CreateCardRequest;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.service.AdminCardService;
@@ -44,6 +45,15 @@ public class AdminCardController {
         return ResponseEntity.ok(cards);
     }
 
+    @GetMapping(params = "after")
+    @Operation(summary = "Просмотр всех карт с курсорной пагинацией (без подсчета общего количества)",
+            description = "Выбирается по наличию параметра after: первая страница запрашивается с пустым after=")
+    public ResponseEntity<CursorPage<CardResponseDTO>> getAllCardsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(adminService.getAllCardsAfter(after, size).map(cardMapper::toDto));
+    }
+
     @PostMapping
     @Operation(summary = "Создание карт")
     public ResponseEntity<CardResponseDTO> createCard(@Valid @RequestBody CreateCardRequest req) {
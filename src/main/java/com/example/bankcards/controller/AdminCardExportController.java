@@ -0,0 +1,37 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.service.CardExportService;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/admin/cards:export")
+@RequiredArgsConstructor
+@Tag(name = "Admin Card API", description = "Администрирование карт всех пользователей")
+public class AdminCardExportController {
+
+    private final CardExportService cardExportService;
+
+    // Пишет прямо в поток ответа на потоке запроса: выгрузка может идти дольше таймаута асинхронных запросов
+    @GetMapping
+    @Operation(summary = "Потоковая выгрузка всех карт (NDJSON или CSV)")
+    public void export(@RequestParam(defaultValue = "NDJSON") CardBulkFormat format,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(format.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"cards." + format.name().toLowerCase() + "\"");
+        cardExportService.export(format, response.getOutputStream());
+    }
+}
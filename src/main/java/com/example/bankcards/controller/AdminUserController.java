@@ -1,19 +1,24 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.UserRegistrationRequest;
 import com.example.bankcards.dto.UserResponseDTO;
+import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.service.AdminUserService;
 
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -38,16 +43,30 @@ public class AdminUserController {
         return ResponseEntity.ok(user);
     }
 
+    @PostMapping("/{id}/tokens:revoke")
+    @Operation(summary = "Отзыв всех выданных пользователю токенов")
+    public ResponseEntity<Void> revokeTokens(@PathVariable Long id) {
+        adminUserService.revokeTokens(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping
-    @Operation(summary = "Просмотр всех пользователей")
-    public ResponseEntity<List<UserResponseDTO>> getAllUsers() {
-        List<UserResponseDTO> users = adminUserService.getAllUsers().stream()
-                .map(user -> UserResponseDTO.builder()
-                        .id(user.getId())
-                        .username(user.getUsername())
-                        .role(user.getRole())
-                        .build())
-                .toList();
-        return ResponseEntity.ok(users);
+    @Operation(summary = "Просмотр пользователей (фильтр по роли и началу имени + пагинация)")
+    public ResponseEntity<Page<UserResponseDTO>> getAllUsers(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) String usernamePrefix,
+            @ParameterObject Pageable pageable) {
+        return ResponseEntity.ok(adminUserService.getUsers(role, usernamePrefix, pageable));
+    }
+
+    @GetMapping(params = "after")
+    @Operation(summary = "Просмотр пользователей с курсорной пагинацией (без подсчета общего количества)",
+            description = "Выбирается по наличию параметра after: первая страница запрашивается с пустым after=")
+    public ResponseEntity<CursorPage<UserResponseDTO>> getAllUsersAfter(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) String usernamePrefix,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(adminUserService.getUsersAfter(role, usernamePrefix, after, size));
     }
 }
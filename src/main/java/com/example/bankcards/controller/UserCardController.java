@@ -1,10 +1,15 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
 import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResultDTO;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
 import com.example.bankcards.service.CardService;
-import com.example.bankcards.util.CardMapper;
+import com.example.bankcards.service.TransferIdempotencyService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,10 +18,13 @@ import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
+import java.time.OffsetDateTime;
+import java.util.List;
 
 
 @RestController
@@ -26,40 +34,74 @@ import java.security.Principal;
 public class UserCardController {
 
     private final CardService cardService;
-    private final CardMapper cardMapper;
+    private final TransferIdempotencyService transferIdempotencyService;
 
     @GetMapping
     @Operation(summary = "Просмотр своих карт (поиск по номеру/имени + пагинация + баланс)")
     public ResponseEntity<Page<CardResponseDTO>> getMyCards(
-            Principal principal,
+            @AuthenticationPrincipal User user,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) CardStatus status,
             @ParameterObject Pageable pageable) {
 
-        Page<CardResponseDTO> cards = cardService.getMyCards(principal.getName(), search, status, pageable)
-                .map(cardMapper::toDto);
-        return ResponseEntity.ok(cards);
+        return ResponseEntity.ok(cardService.getMyCards(user.getId(), search, status, pageable));
+    }
+
+    @GetMapping(params = "after")
+    @Operation(summary = "Просмотр своих карт с курсорной пагинацией (без подсчета общего количества)",
+            description = "Выбирается по наличию параметра after: первая страница запрашивается с пустым after=")
+    public ResponseEntity<CursorPage<CardResponseDTO>> getMyCardsAfter(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) CardStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(cardService.getMyCardsAfter(user.getId(), status, after, size));
+    }
+
+    @GetMapping("/{id}/transactions")
+    @Operation(summary = "История движений по своей карте (от новых к старым, курсорная пагинация)")
+    public ResponseEntity<CursorPage<CardTransactionDTO>> getTransactions(
+            @AuthenticationPrincipal User user,
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(cardService.getCardTransactions(user.getId(), id, from, to, cursor, size));
     }
 
     @PostMapping("/transfer")
     @Operation(summary = "Перевод денежных средств")
     public ResponseEntity<String> transfer(
-            Principal principal,
+            @AuthenticationPrincipal User user,
+            @RequestHeader(name = TransferIdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request) {
 
+        if (idempotencyKey != null) {
+            return ResponseEntity.ok(transferIdempotencyService.transfer(user.getId(), idempotencyKey, request));
+        }
         cardService.transferBetweenOwnCards(
-                principal.getName(),
+                user.getId(),
                 request.getFromCardId(),
                 request.getToCardId(),
                 request.getAmount()
         );
-        return ResponseEntity.ok("Перевод успешно выполнен");
+        return ResponseEntity.ok(TransferIdempotencyService.TRANSFER_DONE);
+    }
+
+    @PostMapping("/transfers:batch")
+    @Operation(summary = "Пакетный перевод денежных средств (результат по каждому переводу)")
+    public ResponseEntity<List<TransferResultDTO>> transferBatch(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody BatchTransferRequest request) {
+
+        return ResponseEntity.ok(cardService.transferBatch(user.getId(), request.getTransfers()));
     }
 
     @PatchMapping("/{id}/block")
     @Operation(summary = "Запрос на блокировку своей карты")
-    public ResponseEntity<Void> lockMyCard(Principal principal, @PathVariable Long id) {
-        cardService.lockCard(principal.getName(), id);
+    public ResponseEntity<Void> lockMyCard(@AuthenticationPrincipal User user, @PathVariable Long id) {
+        cardService.lockCard(user.getId(), id);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class BatchTransferRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid @NotNull TransferRequest> transfers;
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.entity.CardBulkJobStatus;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Состояние задания массового выпуска карт.
+ */
+@Data
+@Builder
+public class CardBulkJobDTO {
+    private UUID id;
+    private CardBulkJobStatus status;
+    private CardBulkFormat format;
+    private long processedLines;
+    private long issuedCards;
+    private long failedLines;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -1,5 +1,8 @@
 package com.example.bankcards.dto;
 
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.CardNumbers;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
@@ -21,4 +24,13 @@ public class CardResponseDTO {
     private BigDecimal balance;
     private String status;
     private LocalDate expiryDate;
+
+    /**
+     * Конструктор для JPQL-проекции {@code SELECT new CardResponseDTO(...)}: маска строится
+     * по card_last4, полный номер не читается.
+     */
+    public CardResponseDTO(Long id, String cardLast4, String ownerName, BigDecimal balance,
+                           CardStatus status, LocalDate expiryDate) {
+        this(id, CardNumbers.mask(cardLast4), ownerName, balance, status.name(), expiryDate);
+    }
 }
\ No newline at end of file
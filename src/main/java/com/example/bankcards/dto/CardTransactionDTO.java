@@ -0,0 +1,25 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Движение по карте из журнала card_ledger: amount &lt; 0 — списание, &gt; 0 — зачисление.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardTransactionDTO {
+    private Long id;
+    private UUID transferId;
+    private Long counterpartyCardId;
+    private BigDecimal amount;
+    private OffsetDateTime createdAt;
+}
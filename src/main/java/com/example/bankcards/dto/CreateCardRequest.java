@@ -3,6 +3,7 @@ package com.example.bankcards.dto;
 import lombok.Data;
 import java.math.BigDecimal;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 
 @Data
@@ -10,7 +11,10 @@ public class CreateCardRequest {
     @NotNull
     private Long userId;
 
+    /** От 12 до 19 цифр; пробелы и дефисы допускаются и отбрасываются при выпуске. */
     @NotNull
+    @Pattern(regexp = "[ -]*(\\d[ -]*){12,19}",
+            message = "номер карты должен содержать от 12 до 19 цифр, допустимы пробелы и дефисы")
     private String cardNumber;
 
     @NotNull
@@ -0,0 +1,61 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.util.PageCursor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Страница keyset-пагинации. Общее количество записей не считается;
+ * nextCursor равен null на последней странице.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private String nextCursor;
+
+    /**
+     * Размер страницы в пределах [1, MAX_SIZE].
+     */
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Собирает страницу из выборки размером size + 1: лишняя строка лишь
+     * сообщает, что за страницей есть продолжение.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, ToLongFunction<T> idOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, PageCursor.encode(idOf.applyAsLong(content.get(size - 1))));
+    }
+
+    /**
+     * То же для курсора, который строится не только из id: cursorOf получает последнюю запись страницы.
+     */
+    public static <T> CursorPage<T> withCursor(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor);
+    }
+}
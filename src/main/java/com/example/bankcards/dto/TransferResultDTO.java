@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат одного перевода из пакета.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResultDTO {
+    private int index;
+    private boolean success;
+    private String error;
+}
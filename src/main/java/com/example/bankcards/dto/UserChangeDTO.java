@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Изменение пользователя из users.changed_at, которое узлы применяют к своим кэшам.
+ */
+@Data
+@AllArgsConstructor
+public class UserChangeDTO {
+    private Long id;
+    private String username;
+    private int tokenVersion;
+    private Instant changedAt;
+}
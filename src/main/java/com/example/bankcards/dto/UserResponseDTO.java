@@ -1,12 +1,23 @@
 package com.example.bankcards.dto;
 
+import com.example.bankcards.entity.Role;
+
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class UserResponseDTO {
     private Long id;
     private String username;
     private String role;
+
+    /**
+     * Конструктор для проекции в запросе: строка собирается из трех колонок без сущности User.
+     */
+    public UserResponseDTO(Long id, String username, Role role) {
+        this(id, username, role.name());
+    }
 }
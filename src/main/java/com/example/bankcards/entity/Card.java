@@ -1,13 +1,16 @@
 package com.example.bankcards.entity;
 
 import com.example.bankcards.util.CardNumberCryptoConverter;
+import com.example.bankcards.util.CardNumbers;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -16,6 +19,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -26,10 +31,13 @@ import lombok.ToString;
 
 /**
  * Сущность банковской карты.
+ * Номер карты загружается лениво (нужна bytecode-энхансация Hibernate): списки карт
+ * работают с {@code cardLast4} и не читают и не расшифровывают полный номер.
  */
 
 @Entity
 @Table(name = "cards")
+@EntityListeners(CardNumberHashListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,14 +45,29 @@ import lombok.ToString;
 @Builder
 @ToString
 public class Card {
+
+    /** Шаг cards_seq: сколько id Hibernate получает за одно обращение к последовательности. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
+    @Basic(fetch = FetchType.LAZY)
     @Convert(converter = CardNumberCryptoConverter.class)
     @Column(name = "card_number", nullable = false)
+    @ToString.Exclude
     private String cardNumber;
 
+    @Column(name = "card_last4", nullable = false, length = 4)
+    private String cardLast4;
+
+    /** Слепой индекс полного номера для точного поиска, заполняется {@link CardNumberHashListener}. */
+    @Column(name = "card_number_hash", nullable = false, length = 64)
+    @ToString.Exclude
+    private String cardNumberHash;
+
     @Column(name = "owner_name", nullable = false)
     private String ownerName;
 
@@ -64,8 +87,18 @@ public class Card {
     private User owner;
 
     public String getMaskedNumber() {
-        if (cardNumber == null || cardNumber.length() < 4) return cardNumber;
-        return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
+        return CardNumbers.mask(cardLast4 != null ? cardLast4 : CardNumbers.lastFour(cardNumber));
+    }
+
+    /**
+     * Номер карты после выпуска не меняется, поэтому последние цифры достаточно вычислить
+     * один раз при вставке. Они берутся из номера без пробелов и дефисов, как при поиске.
+     */
+    @PrePersist
+    void fillDerivedNumberColumns() {
+        if (cardLast4 == null) {
+            cardLast4 = CardNumbers.lastFour(CardNumbers.normalize(cardNumber));
+        }
     }
 
     @Override
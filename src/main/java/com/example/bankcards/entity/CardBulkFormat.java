@@ -0,0 +1,30 @@
+package com.example.bankcards.entity;
+
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Построчный формат файлов с картами (массовый выпуск и выгрузка): одна карта на строку.
+ */
+public enum CardBulkFormat {
+    /** {@code {"userId":1,"cardNumber":"4000...","initialBalance":100}} */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+    /** {@code userId,cardNumber,initialBalance}, строка заголовка необязательна */
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    CardBulkFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static Optional<CardBulkFormat> of(MediaType contentType) {
+        return Arrays.stream(values()).filter(f -> f.mediaType.isCompatibleWith(contentType)).findFirst();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bankcards.entity;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Задание массового выпуска карт. Счетчики обновляются в одной транзакции со вставкой
+ * каждой порции, поэтому прогресс совпадает с тем, что уже записано в cards.
+ */
+@Entity
+@Table(name = "card_bulk_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class CardBulkJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CardBulkJobStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private CardBulkFormat format;
+
+    @Column(name = "processed_lines", nullable = false)
+    private long processedLines;
+
+    @Column(name = "issued_cards", nullable = false)
+    private long issuedCards;
+
+    @Column(name = "failed_lines", nullable = false)
+    private long failedLines;
+
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Пульс узла, выполняющего задание; по нему находятся задания упавших узлов.
+     * Как и остальные моменты задания, берется из часов базы данных, а не узла.
+     */
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.entity;
+
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Ошибка обработки одной строки входного файла массового выпуска.
+ */
+@Entity
+@Table(name = "card_bulk_job_errors")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class CardBulkJobError {
+
+    public static final int MAX_MESSAGE_LENGTH = 500;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_bulk_job_errors_seq")
+    @SequenceGenerator(name = "card_bulk_job_errors_seq", sequenceName = "card_bulk_job_errors_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private UUID jobId;
+
+    @Column(name = "line_number", nullable = false)
+    private long lineNumber;
+
+    @Column(nullable = false, length = MAX_MESSAGE_LENGTH)
+    private String message;
+}
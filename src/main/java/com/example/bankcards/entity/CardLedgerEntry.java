@@ -0,0 +1,65 @@
+package com.example.bankcards.entity;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Запись журнала движений по карте. Перевод порождает две записи с общим transferId:
+ * списание (amount &lt; 0) по карте-источнику и зачисление по карте-получателю.
+ * Записи только добавляются; в PostgreSQL таблица секционирована по месяцам created_at.
+ * Карты хранятся идентификаторами, без связей: журнал переживает удаление карты.
+ */
+@Entity
+@Table(name = "card_ledger")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class CardLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_ledger_seq")
+    @SequenceGenerator(name = "card_ledger_seq", sequenceName = "card_ledger_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "transfer_id", nullable = false)
+    private UUID transferId;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name = "counterparty_card_id")
+    private Long counterpartyCardId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    /**
+     * Пара записей одного перевода: списание с from и зачисление на to.
+     */
+    public static List<CardLedgerEntry> transfer(Long fromId, Long toId, BigDecimal amount, OffsetDateTime at) {
+        UUID transferId = UUID.randomUUID();
+        return List.of(
+                new CardLedgerEntry(null, transferId, fromId, toId, amount.negate(), at),
+                new CardLedgerEntry(null, transferId, toId, fromId, amount, at));
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.util.CardNumberBlindIndex;
+
+import jakarta.persistence.PrePersist;
+
+/**
+ * Заполняет слепой индекс номера при вставке карты.
+ * Ключ индекса — бин контекста, поэтому значение вычисляет слушатель, который Hibernate
+ * создает через контейнер бинов Spring, а не callback самой сущности.
+ */
+public class CardNumberHashListener {
+
+    private final CardNumberBlindIndex blindIndex;
+
+    public CardNumberHashListener(CardNumberBlindIndex blindIndex) {
+        this.blindIndex = blindIndex;
+    }
+
+    @PrePersist
+    void fillCardNumberHash(Card card) {
+        if (card.getCardNumberHash() == null) {
+            card.setCardNumberHash(blindIndex.hash(card.getCardNumber()));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
@@ -18,6 +19,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -41,7 +43,8 @@ import lombok.ToString;
 @ToString
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -54,6 +57,20 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private Role role;
 
+    /**
+     * Версия токенов: отзыв увеличивает ее, токены с меньшей версией недействительны.
+     */
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    /**
+     * Момент последнего изменения по часам БД; по нему узлы находят изменения, см. UserChangeFeed.
+     */
+    @JsonIgnore
+    @Column(name = "changed_at")
+    private Instant changedAt;
+
     @JsonIgnore
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL)
     @ToString.Exclude
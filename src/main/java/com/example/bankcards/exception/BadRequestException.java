@@ -0,0 +1,15 @@
+package com.example.bankcards.exception;
+
+/**
+ * Некорректные параметры запроса клиента (курсор, период, Idempotency-Key и т.п.).
+ * Только это исключение отдается как 400 с текстом сообщения, поэтому сообщение пишется для клиента.
+ */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.bankcards.migration;
+
+import com.example.bankcards.util.CardNumberCryptoConverter;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Основа миграций, которые заполняют производную от номера карты колонку.
+ * Расшифровка возможна только на стороне приложения, поэтому строки читаются
+ * курсором, а результат пишется JDBC-пакетами.
+ */
+public abstract class AbstractCardBackfillChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final String column;
+    private int updated;
+
+    protected AbstractCardBackfillChange(String column) {
+        this.column = column;
+    }
+
+    /**
+     * Значение колонки для открытого номера карты.
+     *
+     * @return null, если значение для такого номера не вычисляется (не только цифры, пробелы и дефисы)
+     */
+    protected abstract String derive(String cardNumber);
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        CardNumberCryptoConverter converter = new CardNumberCryptoConverter();
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, card_number FROM cards WHERE " + column + " IS NULL");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE cards SET " + column + " = ? WHERE id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            int pending = 0;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    String value = derive(converter.convertToEntityAttribute(rs.getString("card_number")));
+                    if (value == null) {
+                        // Без значения миграция упала бы на NOT NULL посреди пакета; номер нужно исправить вручную
+                        throw new CustomChangeException("Карта id=" + id + ": номер не состоит из цифр, "
+                                + column + " не вычисляется. Исправьте номер и повторите миграцию");
+                    }
+                    update.setString(1, value);
+                    update.setLong(2, id);
+                    update.addBatch();
+                    updated++;
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        } catch (SQLException | DatabaseException e) {
+            throw new CustomChangeException("Не удалось заполнить " + column, e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return column + " заполнен для " + updated + " карт";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.migration;
+
+import com.example.bankcards.util.CardNumbers;
+
+/**
+ * Заполняет cards.card_last4 для уже существующих карт.
+ */
+public class CardLast4BackfillChange extends AbstractCardBackfillChange {
+
+    public CardLast4BackfillChange() {
+        super("card_last4");
+    }
+
+    @Override
+    protected String derive(String cardNumber) {
+        return CardNumbers.lastFour(CardNumbers.normalize(cardNumber));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBulkJobError;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий ошибок массового выпуска карт.
+ */
+@Repository
+public interface CardBulkJobErrorRepository extends JpaRepository<CardBulkJobError, Long> {
+
+    /**
+     * Keyset-выборка ошибок задания (idx_bulk_error_job_id) для выгрузки порциями.
+     */
+    List<CardBulkJobError> findAllByJobIdAndIdGreaterThanOrderByIdAsc(UUID jobId, Long afterId, Limit limit);
+}
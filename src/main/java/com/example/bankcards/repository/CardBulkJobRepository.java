@@ -0,0 +1,55 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBulkJob;
+import com.example.bankcards.entity.CardBulkJobStatus;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Репозиторий заданий массового выпуска карт.
+ */
+@Repository
+public interface CardBulkJobRepository extends JpaRepository<CardBulkJob, UUID> {
+
+    /**
+     * Прибавляет результат обработанной порции к счетчикам задания одним UPDATE и обновляет пульс.
+     * Задание, уже помеченное FAILED, не обновляется (0 строк): его порция откатывается.
+     * Время пульса и сверки берется из базы данных, чтобы расхождение часов узлов не влияло на сверку.
+     */
+    @Modifying
+    @Query("UPDATE CardBulkJob j SET j.processedLines = j.processedLines + :processed, " +
+            "j.issuedCards = j.issuedCards + :issued, j.failedLines = j.failedLines + :failed, " +
+            "j.updatedAt = local datetime " +
+            "WHERE j.id = :id AND j.status = com.example.bankcards.entity.CardBulkJobStatus.RUNNING")
+    int addProgress(@Param("id") UUID id,
+                    @Param("processed") long processed,
+                    @Param("issued") long issued,
+                    @Param("failed") long failed);
+
+    @Modifying
+    @Query("UPDATE CardBulkJob j SET j.status = :status, j.finishedAt = local datetime, j.updatedAt = local datetime " +
+            "WHERE j.id IN :ids AND j.status = com.example.bankcards.entity.CardBulkJobStatus.RUNNING")
+    int finish(@Param("ids") Collection<UUID> ids, @Param("status") CardBulkJobStatus status);
+
+    @Modifying
+    @Query("UPDATE CardBulkJob j SET j.updatedAt = local datetime " +
+            "WHERE j.id IN :ids AND j.status = com.example.bankcards.entity.CardBulkJobStatus.RUNNING")
+    int heartbeat(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Помечает FAILED задания RUNNING, пульс которых не обновлялся дольше staleAfterSeconds
+     * по часам базы данных: узел упал или был остановлен.
+     */
+    @Modifying
+    @Query("UPDATE CardBulkJob j SET j.status = com.example.bankcards.entity.CardBulkJobStatus.FAILED, " +
+            "j.finishedAt = local datetime WHERE j.status = com.example.bankcards.entity.CardBulkJobStatus.RUNNING " +
+            "AND j.updatedAt < local datetime - :staleAfterSeconds second")
+    int failStale(@Param("staleAfterSeconds") long staleAfterSeconds);
+}
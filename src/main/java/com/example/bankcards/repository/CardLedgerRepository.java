@@ -0,0 +1,14 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardLedgerEntry;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Журнал движений по картам. Записи сохраняются пакетом вместе с переводом (hibernate.jdbc.batch_size),
+ * история читается keyset-выборкой findHistory.
+ */
+@Repository
+public interface CardLedgerRepository extends JpaRepository<CardLedgerEntry, Long>, CardLedgerRepositoryCustom {
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.util.PageCursor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Чтение журнала движений по карте.
+ */
+public interface CardLedgerRepositoryCustom {
+
+    /**
+     * Движения по карте от новых к старым, keyset по (created_at, id).
+     * Границы периода попадают в запрос только если заданы: по ним PostgreSQL отсекает
+     * месячные секции, не пересекающиеся с периодом.
+     *
+     * @param from  начало периода включительно или null
+     * @param to    конец периода не включительно или null
+     * @param after позиция последней отданной записи или null для первой страницы
+     */
+    List<CardTransactionDTO> findHistory(Long cardId, OffsetDateTime from, OffsetDateTime to,
+                                         PageCursor.Position after, int limit);
+}
@@ -0,0 +1,54 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.util.PageCursor;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class CardLedgerRepositoryCustomImpl implements CardLedgerRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<CardTransactionDTO> findHistory(Long cardId, OffsetDateTime from, OffsetDateTime to,
+                                                PageCursor.Position after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CardTransactionDTO> query = cb.createQuery(CardTransactionDTO.class);
+        Root<CardLedgerEntry> entry = query.from(CardLedgerEntry.class);
+        Path<OffsetDateTime> createdAt = entry.get("createdAt");
+        Path<Long> id = entry.get("id");
+
+        List<Predicate> where = new ArrayList<>(5);
+        where.add(cb.equal(entry.get("cardId"), cardId));
+        if (from != null) {
+            where.add(cb.greaterThanOrEqualTo(createdAt, from));
+        }
+        if (to != null) {
+            where.add(cb.lessThan(createdAt, to));
+        }
+        if (after != null) {
+            // (created_at, id) < (:at, :id); отдельное created_at <= :at остается границей сканирования индекса
+            OffsetDateTime at = after.createdAt().atOffset(ZoneOffset.UTC);
+            where.add(cb.lessThanOrEqualTo(createdAt, at));
+            where.add(cb.or(cb.lessThan(createdAt, at), cb.lessThan(id, after.id())));
+        }
+        query.select(cb.construct(CardTransactionDTO.class, id, entry.get("transferId"),
+                        entry.get("counterpartyCardId"), entry.get("amount"), createdAt))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
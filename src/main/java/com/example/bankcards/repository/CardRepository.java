@@ -1,52 +1,161 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.CardResponseDTO;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import jakarta.persistence.LockModeType;
+
 /**
  * Репозиторий для работы с банковскими картами.
  * Предоставляет методы поиска карт по владельцу, статусу и сроку действия.
  */
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardRepositoryCustom {
+
+    /**
+     * Проекция карты для списков владельца: только колонки CardResponseDTO, без расшифровки номера.
+     * Строки не становятся управляемыми сущностями, поэтому read-only транзакция не хранит
+     * для них снимки dirty checking, а маппинг Card → DTO не нужен.
+     */
+    String CARD_DTO = "SELECT new com.example.bankcards.dto.CardResponseDTO(" +
+            "c.id, c.cardLast4, c.ownerName, c.balance, c.status, c.expiryDate) FROM Card c ";
+
+    /**
+     * Поиск по части имени владельца на карте.
+     * Номер карты хранится зашифрованным, поэтому поиск по номеру выполняется
+     * точным совпадением через слепой индекс или последние 4 цифры.
+     * LOWER применяется к колонке без изменений, чтобы выражение совпадало
+     * с триграммным индексом idx_card_owner_name_trgm. Фильтр идет по cards.user_id
+     * без JOIN на users: зная конкретного владельца, планировщик выбирает триграммный
+     * индекс для клиентов с тысячами карт и (user_id, status) для обычных.
+     */
+    @Query(value = CARD_DTO + "WHERE c.owner.id = :userId " +
+            "AND LOWER(c.ownerName) LIKE CONCAT('%', LOWER(:search), '%')",
+            countQuery = "SELECT COUNT(c) FROM Card c WHERE c.owner.id = :userId " +
+                    "AND LOWER(c.ownerName) LIKE CONCAT('%', LOWER(:search), '%')")
+    Page<CardResponseDTO> searchMyCards(@Param("userId") Long userId,
+                                        @Param("search") String search,
+                                        Pageable pageable);
+
+    /**
+     * Точный поиск карты по слепому индексу полного номера (idx_card_number_hash).
+     */
+    @Query(value = CARD_DTO + "WHERE c.owner.id = :userId AND c.cardNumberHash = :hash",
+            countQuery = "SELECT COUNT(c) FROM Card c WHERE c.owner.id = :userId AND c.cardNumberHash = :hash")
+    Page<CardResponseDTO> findMyCardsByNumberHash(@Param("userId") Long userId,
+                                                  @Param("hash") String cardNumberHash,
+                                                  Pageable pageable);
 
     /**
-     * Поиск карт пользователя с фильтрацией по имени владельца на карте.
+     * Поиск по последним 4 цифрам номера (idx_card_user_last4).
      */
-    Page<Card> findAllByOwnerUsernameAndOwnerNameContainingIgnoreCase(
-            String username,
-            String ownerName,
-            Pageable pageable
-    );
+    @Query(value = CARD_DTO + "WHERE c.owner.id = :userId AND c.cardLast4 = :last4",
+            countQuery = "SELECT COUNT(c) FROM Card c WHERE c.owner.id = :userId AND c.cardLast4 = :last4")
+    Page<CardResponseDTO> findMyCardsByLast4(@Param("userId") Long userId,
+                                             @Param("last4") String cardLast4,
+                                             Pageable pageable);
 
     /**
-     * Поиск по части зашифрованного номера или имени владельца.
-     * Внимание: поиск LIKE по зашифрованному полю cardNumber может работать некорректно,
-     * так как в БД хранятся зашифрованные данные.
+     * Карты пользователя с фильтром по статусу (idx_card_user_status_id).
      */
-    @Query("SELECT c FROM Card c WHERE c.owner.username = :username " +
-            "AND (LOWER(c.ownerName) LIKE LOWER(CONCAT('%', :search, '%')) " +
-            "OR c.cardNumber LIKE CONCAT('%', :search, '%'))")
-    Page<Card> searchMyCards(@Param("username") String username,
-                             @Param("search") String search,
-                             Pageable pageable);
+    @Query(value = CARD_DTO + "WHERE c.owner.id = :userId AND c.status = :status",
+            countQuery = "SELECT COUNT(c) FROM Card c WHERE c.owner.id = :userId AND c.status = :status")
+    Page<CardResponseDTO> findMyCardsByStatus(@Param("userId") Long userId,
+                                              @Param("status") CardStatus status,
+                                              Pageable pageable);
 
-    Page<Card> findAllByOwnerUsernameAndStatus(String username, CardStatus status, Pageable pageable);
+    @Query(value = CARD_DTO + "WHERE c.owner.id = :userId",
+            countQuery = "SELECT COUNT(c) FROM Card c WHERE c.owner.id = :userId")
+    Page<CardResponseDTO> findMyCards(@Param("userId") Long userId, Pageable pageable);
 
-    Page<Card> findAllByOwnerUsername(String username, Pageable pageable);
+    /**
+     * Keyset-выборка: следующие limit карт после afterId без OFFSET и COUNT(*).
+     */
+    List<Card> findAllByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Keyset-страница своих карт по индексу (user_id, id).
+     */
+    @Query(CARD_DTO + "WHERE c.owner.id = :userId AND c.id > :afterId ORDER BY c.id")
+    List<CardResponseDTO> findMyCardsAfter(@Param("userId") Long userId,
+                                           @Param("afterId") Long afterId,
+                                           Limit limit);
+
+    /**
+     * Keyset-страница своих карт с фильтром по статусу по индексу (user_id, status, id).
+     */
+    @Query(CARD_DTO + "WHERE c.owner.id = :userId AND c.status = :status AND c.id > :afterId ORDER BY c.id")
+    List<CardResponseDTO> findMyCardsByStatusAfter(@Param("userId") Long userId,
+                                                   @Param("status") CardStatus status,
+                                                   @Param("afterId") Long afterId,
+                                                   Limit limit);
 
-    Optional<Card> findByIdAndOwnerUsername(Long id, String username);
+    Optional<Card> findByIdAndOwnerId(Long id, Long userId);
 
-    List<Card> findAllByExpiryDateBeforeAndStatus(LocalDate date, CardStatus status);
+    /**
+     * Проверка владельца без загрузки карты (и расшифровки номера).
+     */
+    boolean existsByIdAndOwnerId(Long id, Long userId);
+
+    /**
+     * Следующая порция id карт с истекшим сроком (keyset по id) для задачи истечения срока.
+     */
+    @Query("SELECT c.id FROM Card c WHERE c.expiryDate < :date AND c.status = :status AND c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsForExpiry(@Param("date") LocalDate date,
+                                @Param("status") CardStatus status,
+                                @Param("afterId") Long afterId,
+                                Limit limit);
+
+    /**
+     * Смена статуса одним UPDATE; карты, чей статус уже не from, не затрагиваются.
+     */
+    @Modifying
+    @Query("UPDATE Card c SET c.status = :to WHERE c.id IN :ids AND c.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("from") CardStatus from,
+                     @Param("to") CardStatus to);
+
+    /**
+     * Блокирует карты пользователя для перевода (SELECT ... FOR UPDATE).
+     * Строки блокируются строго по возрастанию id, поэтому встречные переводы
+     * A→B и B→A ждут друг друга, а не попадают во взаимную блокировку.
+     * Владелец проверяется по cards.user_id без JOIN, поэтому FOR UPDATE не захватывает строку users.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids AND c.owner.id = :userId ORDER BY c.id")
+    List<Card> findAllForTransfer(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    /**
+     * Атомарное списание: баланс уменьшается только при достаточном остатке.
+     *
+     * @return количество обновленных строк (0 — недостаточно средств)
+     */
+    @Modifying
+    @Query(value = "UPDATE cards SET balance = balance - :amount WHERE id = :id AND balance >= :amount",
+            nativeQuery = true)
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Атомарное зачисление на карту.
+     */
+    @Modifying
+    @Query(value = "UPDATE cards SET balance = balance + :amount WHERE id = :id", nativeQuery = true)
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.Card;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Операции над картами, которые выполняются напрямую через JDBC.
+ */
+public interface CardRepositoryCustom {
+
+    /**
+     * Применяет накопленные изменения балансов одним JDBC-пакетом.
+     * Строки карт должны быть предварительно заблокированы вызывающей стороной.
+     *
+     * @param deltas изменение баланса по id карты (положительное — зачисление)
+     */
+    void applyBalanceDeltas(Map<Long, BigDecimal> deltas);
+
+    /**
+     * Вставляет новые карты одним JDBC-пакетом в обход persistence context.
+     * Шифрование номеров и слепой индекс вычисляются параллельно, id выделяются
+     * из cards_seq блоками, как это делает pooled-оптимизатор Hibernate.
+     * У карт должны быть заполнены владелец, имя владельца, баланс, статус и срок действия.
+     *
+     * @return количество вставленных карт
+     */
+    int insertAll(List<Card> cards);
+
+    /**
+     * Проходит по всем картам в порядке id однонаправленным курсором, не создавая сущностей:
+     * в памяти одновременно находится не больше fetchSize строк. Номер читается только как
+     * card_last4 для маски, поэтому расшифровки нет. Вызывать внутри транзакции — PostgreSQL
+     * отдает строки порциями только при выключенном autocommit, иначе материализует весь результат.
+     */
+    void forEachCard(int fetchSize, Consumer<CardResponseDTO> action);
+}
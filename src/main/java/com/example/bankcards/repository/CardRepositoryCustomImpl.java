@@ -0,0 +1,96 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import com.example.bankcards.util.CardNumberCryptoConverter;
+import com.example.bankcards.util.CardNumbers;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+
+    private static final CardNumberCryptoConverter CRYPTO = new CardNumberCryptoConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardNumberBlindIndex blindIndex;
+
+    @Override
+    public void applyBalanceDeltas(Map<Long, BigDecimal> deltas) {
+        List<Object[]> args = deltas.entrySet().stream()
+                .filter(e -> e.getValue().signum() != 0)
+                .map(e -> new Object[]{e.getValue(), e.getKey()})
+                .toList();
+        if (args.isEmpty()) return;
+        jdbcTemplate.batchUpdate("UPDATE cards SET balance = balance + ? WHERE id = ?", args);
+    }
+
+    @Override
+    public int insertAll(List<Card> cards) {
+        if (cards.isEmpty()) return 0;
+        long[] ids = allocateIds(cards.size());
+        // AES и HMAC нагружают CPU: номера обрабатываются параллельно, порядок строк сохраняется
+        List<Object[]> encrypted = cards.parallelStream()
+                .map(c -> new Object[]{
+                        CRYPTO.convertToDatabaseColumn(c.getCardNumber()),
+                        CardNumbers.lastFour(CardNumbers.normalize(c.getCardNumber())),
+                        blindIndex.hash(c.getCardNumber())})
+                .toList();
+        Object[][] args = new Object[cards.size()][];
+        for (int i = 0; i < cards.size(); i++) {
+            Card card = cards.get(i);
+            Object[] number = encrypted.get(i);
+            args[i] = new Object[]{ids[i], number[0], number[1], number[2], card.getOwnerName(), card.getBalance(),
+                    card.getStatus().name(), Date.valueOf(card.getExpiryDate()), card.getOwner().getId()};
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cards (id, card_number, card_last4, card_number_hash, owner_name, " +
+                "balance, status, expiry_date, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", List.of(args));
+        return cards.size();
+    }
+
+    @Override
+    public void forEachCard(int fetchSize, Consumer<CardResponseDTO> action) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, card_last4, owner_name, balance, status, expiry_date FROM cards ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(CardResponseDTO.builder()
+                .id(rs.getLong("id"))
+                .maskedNumber(CardNumbers.mask(rs.getString("card_last4")))
+                .ownerName(rs.getString("owner_name"))
+                .balance(rs.getBigDecimal("balance"))
+                .status(rs.getString("status"))
+                .expiryDate(rs.getDate("expiry_date").toLocalDate())
+                .build()));
+    }
+
+    /**
+     * Значение cards_seq — верхняя граница блока из {@link Card#ID_ALLOCATION_SIZE} id
+     * (как у pooled-оптимизатора), поэтому блоки не пересекаются с выданными Hibernate.
+     */
+    private long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            Long hi = jdbcTemplate.queryForObject("SELECT nextval('cards_seq')", Long.class);
+            for (long id = Math.max(1, hi - Card.ID_ALLOCATION_SIZE + 1); id <= hi && filled < count; id++) {
+                ids[filled++] = id;
+            }
+        }
+        return ids;
+    }
+}
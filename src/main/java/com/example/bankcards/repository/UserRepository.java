@@ -1,8 +1,14 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.UserChangeDTO;
 import com.example.bankcards.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -10,7 +16,35 @@ import java.util.Optional;
  */
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password, u.changedAt = instant WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1, u.changedAt = instant WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    /**
+     * Версии пользователей, у которых токены хотя бы раз отзывались; у остальных версия 0.
+     */
+    @Query("SELECT new com.example.bankcards.dto.UserChangeDTO(u.id, u.username, u.tokenVersion, u.changedAt) " +
+            "FROM User u WHERE u.tokenVersion > 0")
+    List<UserChangeDTO> findRevokedTokenVersions();
+
+    @Query("SELECT max(u.changedAt) FROM User u")
+    Optional<Instant> findLastChangedAt();
+
+    /**
+     * @param since момент, прочитанный из users.changed_at, а не часы узла
+     */
+    @Query("SELECT new com.example.bankcards.dto.UserChangeDTO(u.id, u.username, u.tokenVersion, u.changedAt) " +
+            "FROM User u WHERE u.changedAt > :since ORDER BY u.changedAt")
+    List<UserChangeDTO> findChangedSince(@Param("since") Instant since);
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.UserResponseDTO;
+import com.example.bankcards.entity.Role;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Список пользователей для администратора. Выбираются только id, username и role —
+ * сущности User (и коллекция карт) не создаются. Фильтры необязательны: в запрос попадают
+ * только заданные условия, поэтому план строится под конкретный набор индексов.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Страница с подсчетом общего количества (фильтр по роли — idx_users_role_id,
+     * по префиксу имени — idx_users_username_prefix).
+     */
+    Page<UserResponseDTO> findSummaries(Role role, String usernamePrefix, Pageable pageable);
+
+    /**
+     * Keyset-выборка: следующие limit пользователей после afterId в порядке id, без OFFSET и COUNT(*).
+     */
+    List<UserResponseDTO> findSummariesAfter(Role role, String usernamePrefix, long afterId, int limit);
+}
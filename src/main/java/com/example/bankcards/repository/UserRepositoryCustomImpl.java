@@ -0,0 +1,85 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.UserResponseDTO;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<UserResponseDTO> findSummaries(Role role, String usernamePrefix, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserResponseDTO> query = cb.createQuery(UserResponseDTO.class);
+        Root<User> user = query.from(User.class);
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        query.select(summary(cb, user))
+                .where(filters(cb, user, role, usernamePrefix).toArray(Predicate[]::new))
+                .orderBy(QueryUtils.toOrders(sort, user, cb));
+        List<UserResponseDTO> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(role, usernamePrefix));
+    }
+
+    @Override
+    public List<UserResponseDTO> findSummariesAfter(Role role, String usernamePrefix, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserResponseDTO> query = cb.createQuery(UserResponseDTO.class);
+        Root<User> user = query.from(User.class);
+        List<Predicate> where = filters(cb, user, role, usernamePrefix);
+        where.add(cb.greaterThan(user.get("id"), afterId));
+        query.select(summary(cb, user))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private long count(Role role, String usernamePrefix) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<User> user = query.from(User.class);
+        query.select(cb.count(user)).where(filters(cb, user, role, usernamePrefix).toArray(Predicate[]::new));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static CompoundSelection<UserResponseDTO> summary(CriteriaBuilder cb, Root<User> user) {
+        return cb.construct(UserResponseDTO.class, user.get("id"), user.get("username"), user.get("role"));
+    }
+
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<User> user, Role role, String usernamePrefix) {
+        List<Predicate> predicates = new ArrayList<>(3);
+        if (role != null) {
+            predicates.add(cb.equal(user.get("role"), role));
+        }
+        if (usernamePrefix != null && !usernamePrefix.isEmpty()) {
+            // LIKE 'prefix%' без ведущего шаблона использует индекс с varchar_pattern_ops
+            predicates.add(cb.like(user.get("username"), escapeLike(usernamePrefix) + "%", '\\'));
+        }
+        return predicates;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -3,15 +3,13 @@ package com.example.bankcards.security;
 import com.example.bankcards.dto.LoginRequest;
 
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -19,18 +17,14 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
-    private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final LoginService loginService;
 
+    /**
+     * Асинхронный ответ: поток Tomcat освобождается на время проверки пароля.
+     */
     @PostMapping("/login")
-    public ResponseEntity<String> authenticate(@RequestBody LoginRequest request) {
-        System.out.println("DEBUG: Попытка входа пользователя: " + request.getUsername());
-        System.out.println("DEBUG: Пароль из запроса: [" + request.getPassword() + "]");
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-        );
-        final UserDetails user = userDetailsService.loadUserByUsername(request.getUsername());
-        return ResponseEntity.ok(jwtService.generateToken(user));
+    public CompletableFuture<ResponseEntity<String>> authenticate(@RequestBody LoginRequest request) {
+        return loginService.login(request.getUsername(), request.getPassword())
+                .thenApply(ResponseEntity::ok);
     }
-}
\ No newline at end of file
+}
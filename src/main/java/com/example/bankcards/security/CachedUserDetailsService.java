@@ -0,0 +1,103 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * UserDetailsService с ограниченным кэшем пользователей перед UserRepository.
+ * Записи вытесняются по размеру и по TTL, а при изменении пользователя сбрасываются:
+ * на своем узле — событием {@link UserChangedEvent} после коммита транзакции,
+ * на остальных — через {@link UserChangeFeed}.
+ * Статистика попаданий/промахов/вытеснений публикуется в метриках cache.* с тегом cache=users.
+ */
+public class CachedUserDetailsService implements UserDetailsService, MeterBinder {
+
+    static final String CACHE_NAME = "users";
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> cache;
+    /**
+     * Число сбросов по всем пользователям. Сбросы редки, поэтому лишний промах после
+     * чужого сброса дешевле, чем счетчик на каждое имя.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachedUserDetailsService(UserRepository userRepository, long maxSize, Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Загрузка из БД идет вне cache.get(key, loader): тот выполняет загрузчик внутри
+     * ConcurrentHashMap.compute под synchronized, и виртуальный поток занял бы carrier
+     * на время запроса к БД. Отсутствующие пользователи не кэшируются.
+     * <p>
+     * Сброс, пришедший между чтением из БД и записью в кэш, не должен потеряться: запись
+     * проверяется после put по счетчику сбросов и удаляется, если сброс был. {@link #evict}
+     * увеличивает счетчик до удаления записи, поэтому любой сброс либо виден этой проверке,
+     * либо удаляет запись после put.
+     */
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        User cached = cache.getIfPresent(username);
+        if (cached != null) return cached;
+        long evictionsBefore = evictions.get();
+        User loaded = load(username);
+        cache.put(username, loaded);
+        if (evictions.get() != evictionsBefore) {
+            cache.invalidate(username);
+        }
+        return loaded;
+    }
+
+    private User load(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден: " + username));
+        // Отсоединенная копия без ленивой коллекции карт: экземпляр общий для всех запросов
+        return User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .role(user.getRole())
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.username());
+    }
+
+    public void evict(String username) {
+        evictions.incrementAndGet();
+        cache.invalidate(username);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
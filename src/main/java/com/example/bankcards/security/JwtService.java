@@ -1,78 +1,170 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
+/**
+ * Выпуск и разбор JWT.
+ * Ключ и парсер создаются один раз: JwtParser неизменяем и потокобезопасен.
+ * Проверенные токены кэшируются (SHA-256 токена → claims) до истечения срока их действия,
+ * поэтому повторный запрос с тем же токеном не проверяет подпись и не разбирает JSON заново.
+ * Токен содержит id пользователя (uid) и роль (role), чтобы фильтр мог собрать
+ * principal без запроса к БД, и версию токенов пользователя (ver) для проверки отзыва.
+ */
 @Service
 public class JwtService {
 
-    @Value("${spring.security.jwt.secret}")
-    private String secretKey;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+    static final String TOKEN_VERSION_CLAIM = "ver";
 
-    @Value("${spring.security.jwt.expiration}")
-    private long jwtExpiration;
+    private final Key signInKey;
+    private final JwtParser parser;
+    private final long jwtExpiration;
+    private final boolean stateless;
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtService(@Value("${spring.security.jwt.secret}") String secretKey,
+                      @Value("${spring.security.jwt.expiration}") long jwtExpiration,
+                      @Value("${spring.security.jwt.stateless:true}") boolean stateless,
+                      @Value("${spring.security.jwt.cache-size:10000}") long cacheSize) {
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+        this.jwtExpiration = jwtExpiration;
+        this.stateless = stateless;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
-    public String generateToken(UserDetails userDetails) {
+    /**
+     * @param tokenVersion текущая версия токенов пользователя (см. {@link TokenRevocationRegistry})
+     */
+    public String generateToken(User user, int tokenVersion) {
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("role", userDetails.getAuthorities());
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        extraClaims.put(TOKEN_VERSION_CLAIM, tokenVersion);
+        extraClaims.put(USER_ID_CLAIM, user.getId());
+        extraClaims.put(ROLE_CLAIM, user.getRole().name());
+        return buildToken(extraClaims, user, jwtExpiration);
     }
 
-    private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
+    private String buildToken(Map<String, Object> extraClaims, User user, long expiration) {
         return Jwts.builder()
                 .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
+                .setSubject(user.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    /**
+     * Единственный разбор токена за запрос: проверяет подпись и срок действия.
+     * Возвращаемые claims могут быть общими для нескольких запросов — их нельзя изменять.
+     *
+     * @throws JwtException если токен поврежден, подделан или истек
+     */
+    public Claims parseToken(String token) {
+        return verifiedTokens.get(digest(token), key -> parser.parseClaimsJws(token).getBody());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Запись живет до exp токена: истекший токен из кэша не вернется.
+     */
+    private final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long millis = expiration != null ? expiration.getTime() - System.currentTimeMillis() : jwtExpiration;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Ключ кэша — хэш токена: сами токены в памяти не хранятся.
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Principal, собранный из claims без обращения к БД.
+     * Пусто, если stateless-режим выключен, токен выпущен до появления uid/role или роль в токене
+     * неизвестна (например, переименована): такие токены проверяются по БД, пока не истекут.
+     */
+    public Optional<User> principalFrom(Claims claims) {
+        if (!stateless) return Optional.empty();
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        Object role = claims.get(ROLE_CLAIM);
+        if (userId == null || !(role instanceof String roleName)) return Optional.empty();
+        return Arrays.stream(Role.values())
+                .filter(known -> known.name().equals(roleName))
+                .findFirst()
+                .map(known -> User.builder()
+                        .id(userId.longValue())
+                        .username(claims.getSubject())
+                        .role(known)
+                        .build());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Версия токенов на момент выпуска; у токенов, выпущенных до появления claim ver, — 0.
+     */
+    public int tokenVersion(Claims claims) {
+        Number version = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        return version != null ? version.intValue() : 0;
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(parseToken(token));
     }
-}
\ No newline at end of file
+}
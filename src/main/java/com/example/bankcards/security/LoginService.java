@@ -0,0 +1,67 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Вход по логину и паролю на отдельном ограниченном пуле.
+ * Проверка BCrypt занимает потоки пула, а не потоки Tomcat; когда пул и очередь заполнены,
+ * новая попытка сразу отклоняется {@link RejectedExecutionException} (ответ 429),
+ * вместо того чтобы копить ожидающие запросы.
+ */
+@Service
+public class LoginService {
+
+    private final AuthenticationManager authenticationManager;
+    private final JwtService jwtService;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final ThreadPoolExecutor executor;
+
+    public LoginService(AuthenticationManager authenticationManager,
+                        JwtService jwtService,
+                        TokenRevocationRegistry revocationRegistry,
+                        @Value("${spring.security.login.threads:0}") int threads,
+                        @Value("${spring.security.login.queue-capacity:200}") int queueCapacity) {
+        this.authenticationManager = authenticationManager;
+        this.jwtService = jwtService;
+        this.revocationRegistry = revocationRegistry;
+        // BCrypt нагружает CPU: по умолчанию один поток на ядро
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("login-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return JWT для пользователя, уже загруженного при аутентификации (повторно читается только версия токенов)
+     * @throws RejectedExecutionException если пул входа перегружен
+     */
+    public CompletableFuture<String> login(String username, String password) {
+        return CompletableFuture.supplyAsync(() -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password));
+            // CachedUserDetailsService всегда возвращает сущность User
+            User user = (User) authentication.getPrincipal();
+            return jwtService.generateToken(user, revocationRegistry.currentVersion(user.getId()));
+        }, executor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Сохраняет пересчитанный хэш пароля при входе, если стоимость BCrypt
+ * (spring.security.password.bcrypt-strength) была повышена.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordRehashService implements UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+        if (user instanceof User entity) {
+            return User.builder()
+                    .id(entity.getId())
+                    .username(entity.getUsername())
+                    .password(newPassword)
+                    .role(entity.getRole())
+                    .build();
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.repository.UserRepository;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отзыв токенов через версию в users.token_version: токен несет версию на момент выпуска (claim ver),
+ * отзыв увеличивает версию в БД, и токены с меньшей версией отклоняются. Состояние хранится в БД,
+ * поэтому отзыв переживает перезапуск; повторный вход сразу после отзыва получает токен с новой версией.
+ * Проверка токена в БД не обращается: узел держит в памяти версии пользователей, у которых токены
+ * отзывались (у остальных версия 0). Версии загружаются при старте, а отзывы на других узлах приходят
+ * через {@link UserChangeFeed} и вступают в силу не позже чем через интервал его опроса.
+ * Пользователи не удаляются, поэтому отдельной проверки существования пользователя нет.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final UserRepository userRepository;
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenRevocationRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Делает недействительными все выпущенные пользователю токены. На этом узле отзыв действует сразу.
+     *
+     * @return false, если пользователя нет
+     */
+    @Transactional
+    public boolean revokeAll(Long userId) {
+        if (userRepository.incrementTokenVersion(userId) != 1) return false;
+        userRepository.findTokenVersionById(userId).ifPresent(version -> apply(userId, version));
+        return true;
+    }
+
+    /**
+     * Версия для нового токена читается из БД, а не из памяти: иначе токен, выпущенный сразу после отзыва
+     * на другом узле, получил бы старую версию и был бы отклонен.
+     */
+    public int currentVersion(Long userId) {
+        int version = userRepository.findTokenVersionById(userId).orElse(0);
+        apply(userId, version);
+        return version;
+    }
+
+    /**
+     * Запоминает версию токенов пользователя. Версия только растет, поэтому запоздавшее
+     * или повторное изменение не возвращает отозванные токены.
+     */
+    public void apply(Long userId, int version) {
+        if (version > 0) {
+            versions.merge(userId, version, Math::max);
+        }
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        return tokenVersion < versions.getOrDefault(userId, 0);
+    }
+}
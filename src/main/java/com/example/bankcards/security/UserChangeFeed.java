@@ -0,0 +1,76 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.UserChangeDTO;
+import com.example.bankcards.repository.UserRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Доставляет изменения пользователей, сделанные на любом узле, до памяти этого узла:
+ * версию токенов — в {@link TokenRevocationRegistry}, сброс записи — в {@link CachedUserDetailsService}.
+ * Изменение пишет в users.changed_at время БД; узел опрашивает строки новее последнего увиденного
+ * changed_at по индексу idx_users_changed_at. Время изменения — начало его транзакции, а видно оно
+ * становится только после коммита, поэтому окно опроса захватывает overlap до последнего увиденного
+ * изменения: транзакция, закоммиченная позже более свежих, не теряется. Уже примененные изменения
+ * из окна не применяются повторно.
+ */
+@Component
+@Slf4j
+public class UserChangeFeed {
+
+    private final UserRepository userRepository;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final CachedUserDetailsService userDetailsService;
+    private final Duration overlap;
+
+    /** Изменения из окна overlap, уже примененные на узле: id пользователя → changed_at. */
+    private final Map<Long, Instant> applied = new HashMap<>();
+    private Instant lastSeen = Instant.EPOCH;
+
+    public UserChangeFeed(UserRepository userRepository,
+                          TokenRevocationRegistry revocationRegistry,
+                          CachedUserDetailsService userDetailsService,
+                          @Value("${spring.security.user-changes.overlap:1m}") Duration overlap) {
+        this.userRepository = userRepository;
+        this.revocationRegistry = revocationRegistry;
+        this.userDetailsService = userDetailsService;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Граница опроса читается до загрузки версий: изменение между двумя запросами попадет в первый опрос.
+     */
+    @PostConstruct
+    void init() {
+        lastSeen = userRepository.findLastChangedAt().orElse(Instant.EPOCH);
+        List<UserChangeDTO> revoked = userRepository.findRevokedTokenVersions();
+        revoked.forEach(change -> revocationRegistry.apply(change.getId(), change.getTokenVersion()));
+        log.info("Загружены версии токенов {} пользователей", revoked.size());
+    }
+
+    @Scheduled(fixedDelayString = "${spring.security.user-changes.poll-interval:PT2S}")
+    public synchronized void poll() {
+        Instant since = lastSeen.minus(overlap);
+        for (UserChangeDTO change : userRepository.findChangedSince(since)) {
+            if (change.getChangedAt().equals(applied.put(change.getId(), change.getChangedAt()))) continue;
+            revocationRegistry.apply(change.getId(), change.getTokenVersion());
+            userDetailsService.evict(change.getUsername());
+            if (change.getChangedAt().isAfter(lastSeen)) {
+                lastSeen = change.getChangedAt();
+            }
+        }
+        Instant windowStart = lastSeen.minus(overlap);
+        applied.values().removeIf(changedAt -> !changedAt.isAfter(windowStart));
+    }
+}
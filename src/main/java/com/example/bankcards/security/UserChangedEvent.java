@@ -0,0 +1,8 @@
+package com.example.bankcards.security;
+
+/**
+ * Данные пользователя (роль, пароль, сам пользователь) изменились —
+ * закэшированные сведения о нем нужно сбросить.
+ */
+public record UserChangedEvent(String username) {
+}
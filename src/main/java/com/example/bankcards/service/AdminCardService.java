@@ -1,11 +1,16 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardNumbers;
+import com.example.bankcards.util.PageCursor;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -13,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -30,12 +36,27 @@ public class AdminCardService {
         return cardRepository.findAll(pageable);
     }
 
+    /**
+     * Keyset-пагинация по id: на глубоких страницах не перебирает OFFSET строк
+     * и не выполняет COUNT(*) по всей таблице.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Card> getAllCardsAfter(String after, int size) {
+        int limit = CursorPage.clampSize(size);
+        List<Card> rows = cardRepository.findAllByIdGreaterThanOrderByIdAsc(PageCursor.decode(after), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, Card::getId);
+    }
+
     public Card createCard(Long userId, String cardNumber, BigDecimal initialBalance) {
+        String digits = CardNumbers.normalize(cardNumber);
+        if (digits == null || digits.isEmpty()) {
+            throw new BadRequestException("Номер карты должен состоять из цифр");
+        }
         User owner = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден"));
 
         Card card = Card.builder()
-                .cardNumber(cardNumber)
+                .cardNumber(digits)
                 .balance(initialBalance)
                 .owner(owner)
                 .ownerName(owner.getUsername())
@@ -1,15 +1,24 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.UserResponseDTO;
+import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenRevocationRegistry;
+import com.example.bankcards.security.UserChangedEvent;
+import com.example.bankcards.util.PageCursor;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -18,6 +27,8 @@ public class AdminUserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public User createUser(String username, String password, com.example.bankcards.entity.Role role) {
@@ -29,16 +40,37 @@ public class AdminUserService {
                 .password(passwordEncoder.encode(password))
                 .role(role)
                 .build();
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getUsername()));
+        return saved;
     }
 
-    public List<UserResponseDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(user -> UserResponseDTO.builder()
-                        .id(user.getId())
-                        .username(user.getUsername())
-                        .role(user.getRole().name())
-                        .build())
-                .toList();
+    /**
+     * Отзывает все ранее выпущенные токены пользователя.
+     */
+    @Transactional
+    public void revokeTokens(Long userId) {
+        if (!revocationRegistry.revokeAll(userId)) {
+            throw new EntityNotFoundException("Пользователь не найден");
+        }
+    }
+
+    /**
+     * Страница пользователей с необязательными фильтрами по роли и началу имени.
+     */
+    @Transactional(readOnly = true)
+    public Page<UserResponseDTO> getUsers(Role role, String usernamePrefix, Pageable pageable) {
+        return userRepository.findSummaries(role, usernamePrefix, pageable);
+    }
+
+    /**
+     * Keyset-пагинация по id: глубокие страницы не перебирают OFFSET строк и не считают всю таблицу.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponseDTO> getUsersAfter(Role role, String usernamePrefix, String after, int size) {
+        int limit = CursorPage.clampSize(size);
+        List<UserResponseDTO> rows = userRepository.findSummariesAfter(role, usernamePrefix,
+                PageCursor.decode(after), limit + 1);
+        return CursorPage.of(rows, limit, UserResponseDTO::getId);
     }
 }
@@ -0,0 +1,383 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CreateCardRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.entity.CardBulkJob;
+import com.example.bankcards.entity.CardBulkJobError;
+import com.example.bankcards.entity.CardBulkJobStatus;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardBulkJobErrorRepository;
+import com.example.bankcards.repository.CardBulkJobRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardNumbers;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Массовый выпуск карт из файла NDJSON или CSV.
+ * Тело запроса потоково сохраняется во временный файл (без буферизации в памяти), после чего
+ * задание обрабатывается в фоне порциями: владельцы порции загружаются одним запросом IN,
+ * карты вставляются JDBC-пакетом, а прогресс и ошибки по строкам фиксируются в той же транзакции.
+ * Строки с ошибками не останавливают задание — их можно выгрузить после завершения.
+ * Узел регулярно обновляет пульс (updated_at) своих заданий, а каждый узел помечает FAILED задания RUNNING
+ * без пульса дольше stale-after: задание упавшего узла не остается RUNNING навсегда. Входной файл лежит
+ * на диске узла, поэтому такое задание не продолжается, а завершается с уже выпущенными картами и счетчиками.
+ * Узел, чье задание уже помечено FAILED, откатывает текущую порцию и прекращает обработку.
+ * При остановке узла очередь не дожидается: его незавершенные задания сразу помечаются FAILED.
+ */
+@Service
+@Slf4j
+public class CardBulkIssueService {
+
+    private static final int ERROR_PAGE_SIZE = 1000;
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final CardBulkJobRepository jobRepository;
+    private final CardBulkJobErrorRepository errorRepository;
+    private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final Duration staleAfter;
+    private final ThreadPoolExecutor executor;
+    private final Map<UUID, Path> activeJobs = new ConcurrentHashMap<>();
+
+    public CardBulkIssueService(CardBulkJobRepository jobRepository,
+                                CardBulkJobErrorRepository errorRepository,
+                                UserRepository userRepository,
+                                CardRepository cardRepository,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                @Value("${spring.cards.bulk.chunk-size:1000}") int chunkSize,
+                                @Value("${spring.cards.bulk.threads:2}") int threads,
+                                @Value("${spring.cards.bulk.queue-capacity:10}") int queueCapacity,
+                                @Value("${spring.cards.bulk.stale-after:5m}") Duration staleAfter) {
+        this.jobRepository = jobRepository;
+        this.errorRepository = errorRepository;
+        this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.staleAfter = staleAfter;
+        // Задания долгие и нагружают БД: число одновременных заданий на узле ограничено, лишние получают 429
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("cards-bulk-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Сохраняет тело запроса и ставит задание в очередь.
+     *
+     * @throws RejectedExecutionException если очередь заданий заполнена
+     */
+    public CardBulkJob submit(InputStream body, CardBulkFormat format) throws IOException {
+        Path file = Files.createTempFile("cards-bulk-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            CardBulkJob job = jobRepository.save(CardBulkJob.builder()
+                    .status(CardBulkJobStatus.RUNNING)
+                    .format(format)
+                    .build());
+            activeJobs.put(job.getId(), file);
+            try {
+                executor.execute(() -> process(job.getId(), format, file));
+            } catch (RejectedExecutionException e) {
+                activeJobs.remove(job.getId());
+                jobRepository.deleteById(job.getId());
+                throw e;
+            }
+            return job;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public CardBulkJob getJob(UUID jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Задание не найдено"));
+    }
+
+    /**
+     * Выгружает ошибки задания в CSV ({@code line,message}) порциями, не загружая их все в память.
+     */
+    public void writeErrors(UUID jobId, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("line,message\n");
+        long afterId = 0;
+        List<CardBulkJobError> page;
+        do {
+            page = errorRepository.findAllByJobIdAndIdGreaterThanOrderByIdAsc(jobId, afterId, Limit.of(ERROR_PAGE_SIZE));
+            for (CardBulkJobError error : page) {
+                writer.write(error.getLineNumber() + ",\"" + error.getMessage().replace("\"", "\"\"") + "\"\n");
+                afterId = error.getId();
+            }
+            writer.flush();
+        } while (page.size() == ERROR_PAGE_SIZE);
+    }
+
+    void process(UUID jobId, CardBulkFormat format, Path file) {
+        CardBulkJobStatus result = CardBulkJobStatus.COMPLETED;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<Line> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && isCsvHeader(format, line))) continue;
+                chunk.add(new Line(lineNumber, line));
+                if (chunk.size() == chunkSize) {
+                    checkNotInterrupted();
+                    processChunk(jobId, format, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(jobId, format, chunk);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Задание массового выпуска {} прервано", jobId, e);
+            result = CardBulkJobStatus.FAILED;
+        } finally {
+            finish(Set.of(jobId), result);
+            activeJobs.remove(jobId);
+            deleteQuietly(file);
+        }
+    }
+
+    private static void checkNotInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new IllegalStateException("Узел останавливается");
+        }
+    }
+
+    /**
+     * Обновляет пульс заданий этого узла (в очереди и в работе) и завершает задания, потерявшие пульс.
+     * Сверка идет на каждом узле одним UPDATE, поэтому блокировка scheduler_locks не нужна.
+     * Задание, прерванное перезапуском узла, помечается FAILED первой сверкой после того, как его пульс
+     * станет старше stale-after: сразу после старта оно еще может выглядеть живым.
+     */
+    @Scheduled(fixedDelayString = "${spring.cards.bulk.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        Set<UUID> jobs = Set.copyOf(activeJobs.keySet());
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (!jobs.isEmpty()) {
+                jobRepository.heartbeat(jobs);
+            }
+            int failed = jobRepository.failStale(staleAfter.toSeconds());
+            if (failed > 0) {
+                log.warn("Заданий массового выпуска без пульса помечено FAILED: {}", failed);
+            }
+        });
+    }
+
+    private void processChunk(UUID jobId, CardBulkFormat format, List<Line> chunk) {
+        List<LineError> errors = new ArrayList<>();
+        List<Parsed> parsed = new ArrayList<>(chunk.size());
+        for (Line line : chunk) {
+            try {
+                parsed.add(new Parsed(line.number(), parse(format, line.text())));
+            } catch (IllegalArgumentException e) {
+                errors.add(new LineError(line.number(), e.getMessage()));
+            }
+        }
+
+        Set<Long> userIds = parsed.stream().map(p -> p.request().getUserId()).collect(Collectors.toSet());
+        Map<Long, User> owners = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Card> cards = new ArrayList<>(parsed.size());
+        LocalDate expiryDate = LocalDate.now().plusYears(4);
+        for (Parsed p : parsed) {
+            User owner = owners.get(p.request().getUserId());
+            if (owner == null) {
+                errors.add(new LineError(p.lineNumber(), "Пользователь не найден"));
+                continue;
+            }
+            cards.add(Card.builder()
+                    .cardNumber(p.request().getCardNumber())
+                    .balance(p.request().getInitialBalance())
+                    .owner(owner)
+                    .ownerName(owner.getUsername())
+                    .status(CardStatus.ACTIVE)
+                    .expiryDate(expiryDate)
+                    .build());
+        }
+
+        try {
+            saveChunk(jobId, chunk.size(), cards, errors);
+        } catch (DataAccessException e) {
+            // Пакет откатывается целиком: строки порции помечаются ошибкой, задание продолжается
+            log.warn("Порция задания {} не сохранена: {}", jobId, e.getMessage());
+            Set<Long> failed = errors.stream().map(LineError::lineNumber).collect(Collectors.toCollection(HashSet::new));
+            for (Line line : chunk) {
+                if (!failed.contains(line.number())) {
+                    errors.add(new LineError(line.number(), "Ошибка сохранения карты"));
+                }
+            }
+            saveChunk(jobId, chunk.size(), List.of(), errors);
+        }
+    }
+
+    private void saveChunk(UUID jobId, int processed, List<Card> cards, List<LineError> errors) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int issued = cardRepository.insertAll(cards);
+            errorRepository.saveAll(errors.stream().map(e -> e.toEntity(jobId)).toList());
+            if (jobRepository.addProgress(jobId, processed, issued, errors.size()) == 0) {
+                // Задание уже завершено сверкой пульса: порция откатывается вместе с картами
+                throw new IllegalStateException("Задание " + jobId + " уже не выполняется");
+            }
+        });
+    }
+
+    private CreateCardRequest parse(CardBulkFormat format, String line) {
+        CreateCardRequest request = switch (format) {
+            case NDJSON -> parseJson(line);
+            case CSV -> parseCsv(line);
+        };
+        Set<ConstraintViolation<CreateCardRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        String digits = CardNumbers.normalize(request.getCardNumber());
+        if (digits == null || digits.isEmpty()) {
+            throw new IllegalArgumentException("cardNumber: номер карты должен состоять из цифр");
+        }
+        request.setCardNumber(digits);
+        return request;
+    }
+
+    private CreateCardRequest parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, CreateCardRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Некорректный JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static CreateCardRequest parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Ожидалось 3 поля: userId,cardNumber,initialBalance");
+        }
+        CreateCardRequest request = new CreateCardRequest();
+        try {
+            request.setUserId(Long.valueOf(fields[0].trim()));
+            request.setCardNumber(fields[1].trim());
+            request.setInitialBalance(new BigDecimal(fields[2].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное число в строке CSV");
+        }
+        return request;
+    }
+
+    private static boolean isCsvHeader(CardBulkFormat format, String line) {
+        return format == CardBulkFormat.CSV && !line.isEmpty() && !Character.isDigit(line.trim().charAt(0));
+    }
+
+    private void finish(Set<UUID> jobIds, CardBulkJobStatus status) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> jobRepository.finish(jobIds, status));
+        } catch (DataAccessException e) {
+            log.error("Не удалось завершить задания массового выпуска {}", jobIds, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}", file, e);
+        }
+    }
+
+    /**
+     * Задания из очереди не запускаются, работающие останавливаются после текущей порции;
+     * все, что не завершилось за время ожидания, помечается FAILED, не дожидаясь сверки пульса.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Задания массового выпуска не остановились за {} с", SHUTDOWN_WAIT_SECONDS);
+        }
+        Set<UUID> unfinished = Set.copyOf(activeJobs.keySet());
+        if (!unfinished.isEmpty()) {
+            finish(unfinished, CardBulkJobStatus.FAILED);
+            unfinished.forEach(jobId -> deleteQuietly(activeJobs.remove(jobId)));
+        }
+    }
+
+    private record Line(long number, String text) {
+    }
+
+    private record Parsed(long lineNumber, CreateCardRequest request) {
+    }
+
+    private record LineError(long lineNumber, String message) {
+
+        CardBulkJobError toEntity(UUID jobId) {
+            String text = message == null ? "Ошибка" : message;
+            return CardBulkJobError.builder()
+                    .jobId(jobId)
+                    .lineNumber(lineNumber)
+                    .message(text.length() > CardBulkJobError.MAX_MESSAGE_LENGTH
+                            ? text.substring(0, CardBulkJobError.MAX_MESSAGE_LENGTH) : text)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.repository.CardRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Выгрузка всех карт для администратора (NDJSON или CSV) с постоянным расходом памяти:
+ * строки читаются курсором по fetchSize и сразу пишутся в поток ответа, без COUNT(*),
+ * страниц и сущностей в persistence context. Номер в выгрузке маскирован, поэтому
+ * шифртекст не читается и не расшифровывается.
+ */
+@Service
+@Slf4j
+public class CardExportService {
+
+    private static final String CSV_HEADER = "id,maskedNumber,ownerName,balance,status,expiryDate\n";
+
+    private final CardRepository cardRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public CardExportService(CardRepository cardRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${spring.cards.export.fetch-size:1000}") int fetchSize) {
+        this.cardRepository = cardRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return число выгруженных карт
+     */
+    @Transactional(readOnly = true)
+    public long export(CardBulkFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == CardBulkFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        long[] count = {0};
+        try {
+            cardRepository.forEachCard(fetchSize, card -> {
+                try {
+                    writer.write(format == CardBulkFormat.CSV ? toCsv(card) : toJson(card));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // клиент закрыл соединение: курсор закрывается вместе с транзакцией
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Выгружено карт: {}", count[0]);
+        return count[0];
+    }
+
+    private String toJson(CardResponseDTO card) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(card);
+    }
+
+    private static String toCsv(CardResponseDTO card) {
+        return card.getId() + "," + card.getMaskedNumber() + ",\"" + card.getOwnerName().replace("\"", "\"\"") + "\","
+                + card.getBalance().toPlainString() + "," + card.getStatus() + "," + card.getExpiryDate();
+    }
+}
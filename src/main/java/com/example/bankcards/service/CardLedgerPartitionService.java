@@ -0,0 +1,107 @@
+package com.example.bankcards.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Обслуживание месячных секций журнала card_ledger (только PostgreSQL).
+ * Секции создаются на months-ahead месяцев вперед, чтобы вставка никогда не упиралась в отсутствующую секцию
+ * (секции DEFAULT нет: с ней присоединение новой секции сканировало бы ее целиком).
+ * Секции старше retention-months отсоединяются через DETACH PARTITION CONCURRENTLY: это операция над каталогом,
+ * без DELETE и последующего VACUUM по миллионам строк. Отсоединенная таблица card_ledger_YYYY_MM остается
+ * в базе для архивации и удаляется вручную. Как и истечение срока карт, задачу выполняет один узел.
+ */
+@Service
+@Slf4j
+public class CardLedgerPartitionService {
+
+    static final String PARTITION_LOCK = "card-ledger-partitions";
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofMinutes(10);
+    private static final Pattern PARTITION_NAME = Pattern.compile("card_ledger_(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLockService schedulerLockService;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public CardLedgerPartitionService(JdbcTemplate jdbcTemplate,
+                                      SchedulerLockService schedulerLockService,
+                                      @Value("${spring.cards.ledger.months-ahead:3}") int monthsAhead,
+                                      @Value("${spring.cards.ledger.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerLockService = schedulerLockService;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(cron = "0 30 0 * * *")
+    public void maintainPartitions() {
+        if (!schedulerLockService.tryAcquire(PARTITION_LOCK, LEASE)) {
+            log.info("Секции журнала обслуживает другой узел, пропуск");
+            return;
+        }
+        try {
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            int created = createPartitions(current, monthsAhead + 1);
+            log.info("Создано секций журнала: {}", created);
+            if (retentionMonths > 0) {
+                List<String> detached = detachPartitionsBefore(current.minusMonths(retentionMonths));
+                log.info("Отсоединены секции журнала: {}", detached);
+            }
+        } finally {
+            schedulerLockService.release(PARTITION_LOCK, LOCK_AT_LEAST_FOR);
+        }
+    }
+
+    /**
+     * Создает недостающие секции на months месяцев начиная с from.
+     *
+     * @return число созданных секций
+     */
+    public int createPartitions(YearMonth from, int months) {
+        Integer created = jdbcTemplate.queryForObject("SELECT card_ledger_create_partitions(?, ?)",
+                Integer.class, from.atDay(1), months);
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * Отсоединяет секции месяцев раньше cutoff. DETACH ... CONCURRENTLY не блокирует вставку в журнал,
+     * но не может выполняться внутри транзакции — метод вызывается без @Transactional.
+     *
+     * @return имена отсоединенных таблиц
+     */
+    public List<String> detachPartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = 'card_ledger' ORDER BY c.relname",
+                String.class);
+        List<String> detached = new ArrayList<>();
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) continue;
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(cutoff)) {
+                // имя проверено шаблоном выше, поэтому подставляется в DDL напрямую
+                jdbcTemplate.execute("ALTER TABLE card_ledger DETACH PARTITION " + partition + " CONCURRENTLY");
+                detached.add(partition);
+            }
+        }
+        return detached;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.CardNumberBlindIndex;
+import com.example.bankcards.util.CardNumberCryptoConverter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Пересчет слепого индекса cards.card_number_hash ключом из конфигурации.
+ * В card_number_hash_state хранится отпечаток ключа, которым посчитаны все строки: пока он совпадает
+ * с отпечатком текущего ключа, задача ограничивается чтением одной строки. После смены ключа (и при первом
+ * запуске, когда отпечаток неизвестен) карты пересчитываются порциями по id (keyset), каждая порция —
+ * отдельная транзакция вместе с позицией after_id, поэтому прерванный пересчет продолжается с места остановки.
+ * Перезаписываются только отличающиеся значения. Карта, номер которой не расшифровывается в цифры,
+ * пропускается с предупреждением. Пока пересчет не завершен, поиск по номеру не находит еще не пересчитанные
+ * карты. Задачу выполняет один узел — владелец аренды в scheduler_locks, как и истечение срока карт.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "spring.cards.blind-index.rehash.enabled", havingValue = "true", matchIfMissing = true)
+public class CardNumberRehashService {
+
+    static final String REHASH_LOCK = "card-number-rehash";
+
+    private static final CardNumberCryptoConverter CRYPTO = new CardNumberCryptoConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLockService schedulerLockService;
+    private final CardNumberBlindIndex blindIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration lease;
+
+    public CardNumberRehashService(JdbcTemplate jdbcTemplate,
+                                   SchedulerLockService schedulerLockService,
+                                   CardNumberBlindIndex blindIndex,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${spring.cards.blind-index.rehash.chunk-size:1000}") int chunkSize,
+                                   @Value("${spring.cards.blind-index.rehash.lease:5m}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerLockService = schedulerLockService;
+        this.blindIndex = blindIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.cards.blind-index.rehash.check-interval:PT1M}")
+    public void rehashIfKeyChanged() {
+        if (blindIndex.fingerprint().equals(keyFingerprint())) return;
+        if (!schedulerLockService.tryAcquire(REHASH_LOCK, lease)) {
+            log.info("Слепой индекс номеров пересчитывает другой узел, пропуск");
+            return;
+        }
+        try {
+            rehash(() -> schedulerLockService.renew(REHASH_LOCK, lease));
+        } finally {
+            schedulerLockService.release(REHASH_LOCK, Duration.ZERO);
+        }
+    }
+
+    /**
+     * @param renewLease продлевает аренду после каждой порции; false — аренда потеряна, пересчет прерывается
+     * @return число перезаписанных значений
+     */
+    long rehash(BooleanSupplier renewLease) {
+        String fingerprint = blindIndex.fingerprint();
+        Map<String, Object> state = jdbcTemplate.queryForMap(
+                "SELECT key_fingerprint, target_fingerprint, after_id FROM card_number_hash_state WHERE id = 1");
+        if (fingerprint.equals(state.get("key_fingerprint"))) return 0;
+
+        long afterId;
+        if (fingerprint.equals(state.get("target_fingerprint")) && state.get("after_id") != null) {
+            afterId = ((Number) state.get("after_id")).longValue();
+            log.info("Продолжение пересчета слепого индекса номеров после id={}", afterId);
+        } else {
+            afterId = 0;
+            jdbcTemplate.update("UPDATE card_number_hash_state SET target_fingerprint = ?, after_id = 0 WHERE id = 1",
+                    fingerprint);
+            log.info("Ключ слепого индекса номеров сменился, пересчет card_number_hash");
+        }
+
+        long total = 0;
+        while (true) {
+            long from = afterId;
+            Chunk chunk = transactionTemplate.execute(status -> rehashChunk(from, fingerprint));
+            if (chunk == null || chunk.rows() == 0) break;
+            afterId = chunk.lastId();
+            total += chunk.rewritten();
+            log.debug("Слепой индекс пересчитан до id={}, перезаписано {}", afterId, total);
+
+            if (chunk.rows() < chunkSize) break;
+            if (!renewLease.getAsBoolean()) {
+                log.warn("Аренда пересчета слепого индекса потеряна после id={}, пересчет прерван", afterId);
+                return total;
+            }
+        }
+        jdbcTemplate.update("UPDATE card_number_hash_state SET key_fingerprint = ?, target_fingerprint = NULL, "
+                + "after_id = NULL WHERE id = 1 AND target_fingerprint = ?", fingerprint, fingerprint);
+        log.info("Слепой индекс номеров пересчитан, перезаписано {} значений", total);
+        return total;
+    }
+
+    private Chunk rehashChunk(long afterId, String fingerprint) {
+        List<StoredCard> cards = jdbcTemplate.query(
+                "SELECT id, card_number, card_number_hash FROM cards WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, n) -> new StoredCard(rs.getLong("id"), rs.getString("card_number"), rs.getString("card_number_hash")),
+                afterId, chunkSize);
+        if (cards.isEmpty()) return new Chunk(0, afterId, 0);
+
+        List<Object[]> updates = new ArrayList<>();
+        for (StoredCard card : cards) {
+            String hash = blindIndex.hash(CRYPTO.convertToEntityAttribute(card.encryptedNumber()));
+            if (hash == null) {
+                log.warn("Карта id={}: номер не расшифровывается в цифры, слепой индекс не пересчитан", card.id());
+            } else if (!hash.equals(card.hash())) {
+                updates.add(new Object[]{hash, card.id()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE cards SET card_number_hash = ? WHERE id = ?", updates);
+        }
+        long lastId = cards.get(cards.size() - 1).id();
+        jdbcTemplate.update("UPDATE card_number_hash_state SET after_id = ? WHERE id = 1 AND target_fingerprint = ?",
+                lastId, fingerprint);
+        return new Chunk(cards.size(), lastId, updates.size());
+    }
+
+    private String keyFingerprint() {
+        return jdbcTemplate.queryForObject("SELECT key_fingerprint FROM card_number_hash_state WHERE id = 1", String.class);
+    }
+
+    private record StoredCard(long id, String encryptedNumber, String hash) {
+    }
+
+    private record Chunk(int rows, long lastId, int rewritten) {
+    }
+}
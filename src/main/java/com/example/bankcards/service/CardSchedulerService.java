@@ -1,39 +1,127 @@
 package com.example.bankcards.service;
 
-import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.repository.CardRepository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Плановый перевод просроченных карт в статус EXPIRED.
+ * Карты обрабатываются порциями по id (keyset) с коммитом на каждую порцию: транзакции короткие,
+ * а persistence context не разрастается. Условие status = 'ACTIVE' делает обновление идемпотентным,
+ * поэтому после сбоя задачу достаточно запустить заново — уже обработанные карты не попадут в выборку.
+ * Cron срабатывает на каждой реплике, но задачу выполняет только узел, получивший аренду в scheduler_locks;
+ * аренда продлевается после каждой порции, и если узел ее потерял, он прекращает работу. После прогона
+ * аренда удерживается до lock-at-least-for от захвата, чтобы опоздавшие реплики не повторили прогон.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class CardSchedulerService {
 
+    static final String EXPIRY_LOCK = "card-expiry";
+
     private final CardRepository cardRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration lease;
+    private final Duration lockAtLeastFor;
+
+    private final Counter expiredCounter;
+    private final Counter chunkCounter;
+    private final Timer runTimer;
+    private final AtomicLong lastProcessedId = new AtomicLong();
+
+    public CardSchedulerService(CardRepository cardRepository,
+                                SchedulerLockService schedulerLockService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${spring.scheduler.card-expiry.chunk-size:1000}") int chunkSize,
+                                @Value("${spring.scheduler.card-expiry.lease:5m}") Duration lease,
+                                @Value("${spring.scheduler.card-expiry.lock-at-least-for:10m}") Duration lockAtLeastFor) {
+        this.cardRepository = cardRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+        this.lockAtLeastFor = lockAtLeastFor;
+        this.expiredCounter = Counter.builder("cards.expiry.expired")
+                .description("Карты, переведенные в EXPIRED")
+                .register(meterRegistry);
+        this.chunkCounter = Counter.builder("cards.expiry.chunks")
+                .description("Закоммиченные порции задачи истечения срока")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("cards.expiry.run")
+                .description("Длительность прогона задачи истечения срока")
+                .register(meterRegistry);
+        meterRegistry.gauge("cards.expiry.last.id", lastProcessedId);
+    }
 
     @Scheduled(cron = "0 0 0 * * *")
-    @Transactional
     public void checkExpiredCards() {
-        log.info("Запуск плановой проверки срока действия карт...");
+        if (!schedulerLockService.tryAcquire(EXPIRY_LOCK, lease)) {
+            log.info("Проверку срока действия карт выполняет другой узел, пропуск");
+            return;
+        }
+        try {
+            log.info("Запуск плановой проверки срока действия карт на узле {}...", schedulerLockService.getNodeId());
+            long total = runTimer.record(() -> expireCardsBefore(LocalDate.now(),
+                    () -> schedulerLockService.renew(EXPIRY_LOCK, lease)));
+            log.info("Обновлен статус на EXPIRED для {} карт", total);
+        } finally {
+            schedulerLockService.release(EXPIRY_LOCK, lockAtLeastFor);
+        }
+    }
+
+    long expireCardsBefore(LocalDate date) {
+        return expireCardsBefore(date, () -> true);
+    }
+
+    /**
+     * @param renewLease продлевает аренду после каждой порции; false — аренда потеряна, прогон прерывается
+     * @return число карт, переведенных в EXPIRED за прогон
+     */
+    long expireCardsBefore(LocalDate date, BooleanSupplier renewLease) {
+        long total = 0;
+        long afterId = 0;
+        lastProcessedId.set(0);
+        while (true) {
+            long from = afterId;
+            List<Long> ids = cardRepository.findIdsForExpiry(date, CardStatus.ACTIVE, from, Limit.of(chunkSize));
+            if (ids.isEmpty()) break;
 
-        LocalDate today = LocalDate.now();
+            Integer updated = transactionTemplate.execute(status ->
+                    cardRepository.updateStatus(ids, CardStatus.ACTIVE, CardStatus.EXPIRED));
+            total += updated == null ? 0 : updated;
+            afterId = ids.get(ids.size() - 1);
 
-        List<Card> expiredCards = cardRepository.findAllByExpiryDateBeforeAndStatus(today, CardStatus.ACTIVE);
+            expiredCounter.increment(updated == null ? 0 : updated);
+            chunkCounter.increment();
+            lastProcessedId.set(afterId);
+            log.debug("Порция до id={} обработана, всего {}", afterId, total);
 
-        if (!expiredCards.isEmpty()) {
-            expiredCards.forEach(card -> card.setStatus(CardStatus.EXPIRED));
-            cardRepository.saveAll(expiredCards);
-            log.info("Обновлен статус на EXPIRED для {} карт", expiredCards.size());
+            if (ids.size() < chunkSize) break;
+            if (!renewLease.getAsBoolean()) {
+                log.warn("Аренда задачи истечения срока потеряна после id={}, прогон прерван", afterId);
+                break;
+            }
         }
+        return total;
     }
 }
@@ -1,16 +1,39 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResultDTO;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardLedgerRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import com.example.bankcards.util.CardNumbers;
+import com.example.bankcards.util.PageCursor;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -21,48 +44,178 @@ import lombok.RequiredArgsConstructor;
 @Transactional(readOnly = true)
 public class CardService {
 
+    private static final int MIN_CARD_NUMBER_LENGTH = 12;
+
     private final CardRepository cardRepository;
+    private final CardLedgerRepository cardLedgerRepository;
+    private final CardNumberBlindIndex blindIndex;
 
-    public Page<Card> getMyCards(String username, String search, CardStatus status, Pageable pageable) {
+    /**
+     * Страница своих карт. Строки выбираются сразу в CardResponseDTO, без загрузки сущностей.
+     */
+    public Page<CardResponseDTO> getMyCards(Long userId, String search, CardStatus status, Pageable pageable) {
         if (search != null && !search.isEmpty()) {
-            return cardRepository.searchMyCards(username, search, pageable);
+            return searchMyCards(userId, search, pageable);
         }
         if (status != null) {
-            return cardRepository.findAllByOwnerUsernameAndStatus(username, status, pageable);
+            return cardRepository.findMyCardsByStatus(userId, status, pageable);
+        }
+        return cardRepository.findMyCards(userId, pageable);
+    }
+
+    /**
+     * Keyset-пагинация своих карт по id: без OFFSET и подсчета общего количества.
+     */
+    public CursorPage<CardResponseDTO> getMyCardsAfter(Long userId, CardStatus status, String after, int size) {
+        int limit = CursorPage.clampSize(size);
+        long afterId = PageCursor.decode(after);
+        List<CardResponseDTO> rows = status != null
+                ? cardRepository.findMyCardsByStatusAfter(userId, status, afterId, Limit.of(limit + 1))
+                : cardRepository.findMyCardsAfter(userId, afterId, Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, CardResponseDTO::getId);
+    }
+
+    /**
+     * История движений по своей карте из журнала, от новых к старым, без подсчета общего количества.
+     *
+     * @param cursor курсор предыдущей страницы (время и id последней записи) или пустое значение
+     */
+    public CursorPage<CardTransactionDTO> getCardTransactions(Long userId, Long cardId, OffsetDateTime from,
+                                                              OffsetDateTime to, String cursor, int size) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("Начало периода должно быть раньше конца");
+        }
+        if (!cardRepository.existsByIdAndOwnerId(cardId, userId)) {
+            throw new EntityNotFoundException("Карта не найдена");
         }
-        return cardRepository.findAllByOwnerUsername(username, pageable);
+        int limit = CursorPage.clampSize(size);
+        List<CardTransactionDTO> rows = cardLedgerRepository.findHistory(
+                cardId, from, to, PageCursor.decodePosition(cursor), limit + 1);
+        return CursorPage.withCursor(rows, limit,
+                last -> PageCursor.encode(last.getCreatedAt().toInstant(), last.getId()));
+    }
+
+    /**
+     * Строка из 4 цифр ищется по последним цифрам номера, полный номер — по слепому индексу,
+     * остальное — по имени владельца. Ни один из вариантов не расшифровывает номера карт.
+     */
+    private Page<CardResponseDTO> searchMyCards(Long userId, String search, Pageable pageable) {
+        String digits = CardNumbers.normalize(search);
+        if (digits != null && digits.length() == 4) {
+            return cardRepository.findMyCardsByLast4(userId, digits, pageable);
+        }
+        if (digits != null && digits.length() >= MIN_CARD_NUMBER_LENGTH) {
+            return cardRepository.findMyCardsByNumberHash(
+                    userId, blindIndex.hash(digits), pageable);
+        }
+        // Выбор между триграммным индексом и (user_id, status) зависит от числа карт клиента,
+        // поэтому соединения открываются с plan_cache_mode = force_custom_plan (spring.datasource.hikari)
+        return cardRepository.searchMyCards(userId, search, pageable);
     }
 
     @Transactional
-    public void transferBetweenOwnCards(String username, Long fromId, Long toId, BigDecimal amount) {
+    public void transferBetweenOwnCards(Long userId, Long fromId, Long toId, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Сумма перевода должна быть положительной");
+            throw new BadRequestException("Сумма перевода должна быть положительной");
+        }
+        // Иначе debit и credit одной карты дали бы две записи журнала без движения денег
+        if (fromId.equals(toId)) {
+            throw new BadRequestException("Карты списания и зачисления должны различаться");
         }
 
-        Card fromCard = cardRepository.findByIdAndOwnerUsername(fromId, username)
-                .orElseThrow(() -> new EntityNotFoundException("Карта списания не найдена или не принадлежит вам"));
+        Map<Long, Card> cards = cardRepository.findAllForTransfer(List.of(fromId, toId), userId).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
 
-        Card toCard = cardRepository.findByIdAndOwnerUsername(toId, username)
-                .orElseThrow(() -> new EntityNotFoundException("Карта зачисления не найдена или не принадлежит вам"));
+        Card fromCard = cards.get(fromId);
+        if (fromCard == null) {
+            throw new EntityNotFoundException("Карта списания не найдена или не принадлежит вам");
+        }
+        if (!cards.containsKey(toId)) {
+            throw new EntityNotFoundException("Карта зачисления не найдена или не принадлежит вам");
+        }
 
         if (fromCard.getStatus() == CardStatus.EXPIRED) {
             throw new IllegalStateException("Карта списания заблокирована или неактивна");
         }
 
-        if (fromCard.getBalance().compareTo(amount) < 0) {
+        // Проверка остатка и списание выполняются одним UPDATE, без read-modify-write
+        if (cardRepository.debit(fromId, amount) == 0) {
             throw new InsufficientFundsException("Недостаточно средств на карте");
         }
+        cardRepository.credit(toId, amount);
+        cardLedgerRepository.saveAll(CardLedgerEntry.transfer(fromId, toId, amount, OffsetDateTime.now(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Пакетный перевод между своими картами в одной транзакции.
+     * Все карты пакета загружаются и блокируются одним запросом, переводы проверяются
+     * последовательно по текущим балансам в памяти, а итоговые изменения по каждой карте
+     * применяются одним JDBC-пакетом, записи журнала — вторым. Ошибка отдельного перевода не отменяет остальные.
+     */
+    @Transactional
+    public List<TransferResultDTO> transferBatch(Long userId, List<TransferRequest> transfers) {
+        Set<Long> ids = new TreeSet<>();
+        transfers.forEach(t -> {
+            ids.add(t.getFromCardId());
+            ids.add(t.getToCardId());
+        });
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        Map<Long, CardStatus> statuses = new HashMap<>();
+        cardRepository.findAllForTransfer(ids, userId).forEach(card -> {
+            balances.put(card.getId(), card.getBalance());
+            statuses.put(card.getId(), card.getStatus());
+        });
+
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        List<CardLedgerEntry> ledger = new ArrayList<>();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest t = transfers.get(i);
+            String error = validateTransfer(t, balances, statuses);
+            if (error != null) {
+                results.add(TransferResultDTO.builder().index(i).success(false).error(error).build());
+                continue;
+            }
+            balances.merge(t.getFromCardId(), t.getAmount().negate(), BigDecimal::add);
+            balances.merge(t.getToCardId(), t.getAmount(), BigDecimal::add);
+            deltas.merge(t.getFromCardId(), t.getAmount().negate(), BigDecimal::add);
+            deltas.merge(t.getToCardId(), t.getAmount(), BigDecimal::add);
+            ledger.addAll(CardLedgerEntry.transfer(t.getFromCardId(), t.getToCardId(), t.getAmount(), now));
+            results.add(TransferResultDTO.builder().index(i).success(true).build());
+        }
 
-        fromCard.setBalance(fromCard.getBalance().subtract(amount));
-        toCard.setBalance(toCard.getBalance().add(amount));
+        cardRepository.applyBalanceDeltas(deltas);
+        cardLedgerRepository.saveAll(ledger);
+        return results;
+    }
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+    private String validateTransfer(TransferRequest t, Map<Long, BigDecimal> balances, Map<Long, CardStatus> statuses) {
+        if (t.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Сумма перевода должна быть положительной";
+        }
+        if (t.getFromCardId().equals(t.getToCardId())) {
+            return "Карты списания и зачисления должны различаться";
+        }
+        if (!balances.containsKey(t.getFromCardId())) {
+            return "Карта списания не найдена или не принадлежит вам";
+        }
+        if (!balances.containsKey(t.getToCardId())) {
+            return "Карта зачисления не найдена или не принадлежит вам";
+        }
+        if (statuses.get(t.getFromCardId()) == CardStatus.EXPIRED) {
+            return "Карта списания заблокирована или неактивна";
+        }
+        if (balances.get(t.getFromCardId()).compareTo(t.getAmount()) < 0) {
+            return "Недостаточно средств на карте";
+        }
+        return null;
     }
 
     @Transactional
-    public void lockCard(String username, Long cardId) {
-        Card card = cardRepository.findByIdAndOwnerUsername(cardId, username)
+    public void lockCard(Long userId, Long cardId) {
+        Card card = cardRepository.findByIdAndOwnerId(cardId, userId)
                 .orElseThrow(() -> new EntityNotFoundException("Карта не найдена"));
         card.setStatus(CardStatus.BLOCKED);
         cardRepository.save(card);
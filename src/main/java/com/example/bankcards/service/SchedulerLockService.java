@@ -0,0 +1,96 @@
+package com.example.bankcards.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Распределенная блокировка плановых задач на таблице scheduler_locks.
+ * Узел получает задачу в аренду до locked_until и продлевает ее по ходу работы. Если узел упал,
+ * не освободив блокировку, по истечении аренды задачу забирает другой узел. Захват и продление —
+ * одиночные условные UPDATE/INSERT, поэтому из нескольких узлов успех получает ровно один.
+ * Все моменты времени берутся из now() базы данных, поэтому захват чужой истекшей аренды
+ * не зависит от расхождения часов узлов.
+ * После завершения задача удерживается не меньше lockAtLeastFor от захвата: cron срабатывает на репликах
+ * не одновременно (расхождение часов, паузы GC, медленный старт), и узел, опоздавший на несколько секунд
+ * к быстрой задаче, не должен выполнить ее второй раз в том же слоте расписания.
+ */
+@Service
+@Slf4j
+public class SchedulerLockService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Getter
+    private final String nodeId;
+
+    public SchedulerLockService(JdbcTemplate jdbcTemplate,
+                                @Value("${spring.scheduler.node-id:}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    /**
+     * Захватывает задачу в аренду. Свободная, истекшая или уже принадлежащая этому узлу блокировка
+     * переходит к узлу; чужая действующая — нет.
+     *
+     * @return true, если задачу должен выполнять этот узел
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        int updated = jdbcTemplate.update(
+                "UPDATE scheduler_locks SET locked_by = ?, locked_at = now(), " +
+                        "locked_until = now() + ? * interval '1 millisecond' " +
+                        "WHERE name = ? AND (locked_until <= now() OR locked_by = ?)",
+                nodeId, lease.toMillis(), name, nodeId);
+        if (updated == 1) {
+            log.debug("Блокировка {} получена узлом {}", name, nodeId);
+            return true;
+        }
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO scheduler_locks (name, locked_by, locked_at, locked_until) " +
+                            "VALUES (?, ?, now(), now() + ? * interval '1 millisecond')",
+                    name, nodeId, lease.toMillis());
+            log.debug("Блокировка {} создана узлом {}", name, nodeId);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Продлевает аренду задачи, которую держит этот узел.
+     *
+     * @return false, если аренда истекла и задачу уже забрал другой узел — работу нужно прекратить
+     */
+    public boolean renew(String name, Duration lease) {
+        return jdbcTemplate.update(
+                "UPDATE scheduler_locks SET locked_until = now() + ? * interval '1 millisecond' " +
+                        "WHERE name = ? AND locked_by = ?",
+                lease.toMillis(), name, nodeId) == 1;
+    }
+
+    /**
+     * Освобождает блокировку после завершения задачи: сразу, если с захвата прошло не меньше lockAtLeastFor,
+     * иначе — в момент locked_at + lockAtLeastFor.
+     */
+    public void release(String name, Duration lockAtLeastFor) {
+        jdbcTemplate.update(
+                "UPDATE scheduler_locks SET locked_until = GREATEST(locked_at + ? * interval '1 millisecond', now()) " +
+                        "WHERE name = ? AND locked_by = ?",
+                lockAtLeastFor.toMillis(), name, nodeId);
+    }
+
+    private static String defaultNodeId() {
+        // pid@host + случайный суффикс: два экземпляра на одном хосте не примут друг друга за себя
+        return ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Переводы с заголовком Idempotency-Key: повтор запроса с тем же ключом возвращает сохраненный ответ,
+ * а деньги списываются один раз.
+ * Первый уровень — ограниченный кэш узла (ключ → ответ): повтор, пришедший на тот же узел, не обращается к БД.
+ * Второй уровень — таблица transfer_idempotency_keys с PK (user_id, idempotency_key). Строка вставляется
+ * INSERT ... ON CONFLICT DO NOTHING в транзакции перевода: конкурентный запрос с тем же ключом на любой реплике
+ * ждет на уникальном индексе, пока первая транзакция не завершится, и затем читает ее ответ.
+ * Сохраняются только выполненные переводы: при ошибке транзакция откатывается вместе с ключом,
+ * и повтор выполняется заново. Ключи живут не меньше ttl и удаляются плановой задачей порциями.
+ */
+@Service
+@Slf4j
+public class TransferIdempotencyService implements MeterBinder {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String TRANSFER_DONE = "Перевод успешно выполнен";
+
+    static final String PURGE_LOCK = "transfer-idempotency-purge";
+    static final String CACHE_NAME = "idempotency-keys";
+    static final int MAX_KEY_LENGTH = 128;
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofMinutes(10);
+
+    private final CardService cardService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLockService schedulerLockService;
+    private final Duration ttl;
+    private final int purgeChunkSize;
+    private final Cache<String, StoredResponse> cache;
+
+    public TransferIdempotencyService(CardService cardService,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      SchedulerLockService schedulerLockService,
+                                      @Value("${spring.cards.idempotency.cache-size:100000}") long cacheSize,
+                                      @Value("${spring.cards.idempotency.ttl:24h}") Duration ttl,
+                                      @Value("${spring.cards.idempotency.purge-chunk-size:1000}") int purgeChunkSize) {
+        this.cardService = cardService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.schedulerLockService = schedulerLockService;
+        this.ttl = ttl;
+        this.purgeChunkSize = purgeChunkSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Выполняет перевод не более одного раза на ключ пользователя.
+     *
+     * @return ответ первого выполнения
+     * @throws IdempotencyKeyReuseException если ключ уже использован для другого перевода
+     */
+    public String transfer(Long userId, String key, TransferRequest request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+        }
+        String cacheKey = userId + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        StoredResponse stored = cache.getIfPresent(cacheKey);
+        if (stored == null) {
+            stored = transactionTemplate.execute(status -> transferOnce(userId, key, fingerprint, request));
+            cache.put(cacheKey, stored);
+        }
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReuseException("Ключ идемпотентности уже использован для другого перевода");
+        }
+        return stored.response();
+    }
+
+    private StoredResponse transferOnce(Long userId, String key, String fingerprint, TransferRequest request) {
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO transfer_idempotency_keys (user_id, idempotency_key, request_fingerprint, response, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                userId, key, fingerprint, TRANSFER_DONE, OffsetDateTime.now(ZoneOffset.UTC));
+        if (inserted == 0) {
+            log.debug("Повтор перевода по ключу {} пользователя {}", key, userId);
+            return jdbcTemplate.queryForObject(
+                    "SELECT request_fingerprint, response FROM transfer_idempotency_keys " +
+                            "WHERE user_id = ? AND idempotency_key = ?",
+                    (rs, rowNum) -> new StoredResponse(rs.getString(1), rs.getString(2)),
+                    userId, key);
+        }
+        // @Transactional перевода присоединяется к текущей транзакции: ключ и движение денег фиксируются вместе
+        cardService.transferBetweenOwnCards(userId, request.getFromCardId(), request.getToCardId(), request.getAmount());
+        return new StoredResponse(fingerprint, TRANSFER_DONE);
+    }
+
+    @Scheduled(cron = "0 15 * * * *")
+    public void purgeExpiredKeys() {
+        if (!schedulerLockService.tryAcquire(PURGE_LOCK, LEASE)) {
+            log.info("Очистку ключей идемпотентности выполняет другой узел, пропуск");
+            return;
+        }
+        try {
+            long deleted = purgeBefore(OffsetDateTime.now(ZoneOffset.UTC).minus(ttl));
+            log.info("Удалено истекших ключей идемпотентности: {}", deleted);
+        } finally {
+            schedulerLockService.release(PURGE_LOCK, LOCK_AT_LEAST_FOR);
+        }
+    }
+
+    /**
+     * Удаляет ключи, созданные раньше cutoff, порциями по purge-chunk-size строк.
+     * Каждая порция — отдельный короткий DELETE по индексу created_at, без долгих блокировок.
+     *
+     * @return число удаленных ключей
+     */
+    long purgeBefore(OffsetDateTime cutoff) {
+        long total = 0;
+        while (true) {
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM transfer_idempotency_keys WHERE ctid = ANY(ARRAY(" +
+                            "SELECT ctid FROM transfer_idempotency_keys WHERE created_at < ? LIMIT ?))",
+                    cutoff, purgeChunkSize);
+            total += deleted;
+            if (deleted < purgeChunkSize) break;
+        }
+        return total;
+    }
+
+    void evictCache() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private static String fingerprint(TransferRequest request) {
+        return request.getFromCardId() + ":" + request.getToCardId() + ":"
+                + request.getAmount().stripTrailingZeros().toPlainString();
+    }
+
+    private record StoredResponse(String fingerprint, String response) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Слепой индекс номера карты: детерминированный HMAC-SHA256 от нормализованного номера.
+ * Позволяет искать карту по точному номеру через B-tree индекс без расшифровки
+ * и без хранения номера в открытом виде.
+ *
+ * <p>Ключ HMAC задается конфигурацией (spring.cards.blind-index.key, переменная CARD_BLIND_INDEX_KEY),
+ * экземпляр — бин контекста, см. CardNumberBlindIndexConfig. Ключ должен отличаться от ключа шифрования
+ * номеров AES ({@link CardNumberCryptoConverter}): иначе утечка одного ключа раскрывает обе защиты.
+ * {@link #fingerprint()} отличает ключи друг от друга, не раскрывая их: по нему пересчет индекса
+ * определяет, каким ключом посчитаны сохраненные значения.
+ */
+public final class CardNumberBlindIndex {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final int FINGERPRINT_BYTES = 16;
+    private static final byte[] FINGERPRINT_LABEL = "card-number-blind-index".getBytes(StandardCharsets.US_ASCII);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Mac prototype;
+    private final String fingerprint;
+
+    /**
+     * @param hexKey ключ в hex, не короче 32 байт (64 символа)
+     */
+    public CardNumberBlindIndex(String hexKey) {
+        byte[] key;
+        try {
+            key = HEX.parseHex(hexKey.strip());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Ключ слепого индекса номеров карт должен быть задан в hex", e);
+        }
+        if (key.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("Ключ слепого индекса номеров карт короче " + MIN_KEY_BYTES + " байт");
+        }
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            this.prototype = mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Blind index initialization error", e);
+        }
+        this.fingerprint = HEX.formatHex(Arrays.copyOf(mac(FINGERPRINT_LABEL), FINGERPRINT_BYTES));
+    }
+
+    /**
+     * @return hex-представление HMAC (64 символа) или null для пустого номера
+     */
+    public String hash(String cardNumber) {
+        String digits = CardNumbers.normalize(cardNumber);
+        if (digits == null || digits.isEmpty()) return null;
+        return HEX.formatHex(mac(digits.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * @return отпечаток ключа (32 hex-символа): HMAC постоянной метки, по нему ключ не восстанавливается
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    private byte[] mac(byte[] input) {
+        try {
+            // Инициализированный прототип не изменяется, копия дешевле Mac.getInstance + init
+            Mac mac = (Mac) prototype.clone();
+            return mac.doFinal(input);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Blind index error", e);
+        }
+    }
+}
@@ -4,11 +4,18 @@ import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Конвертер для автоматического шифрования номеров карт в базе данных.
  * Использует алгоритм AES.
+ * Ключ разворачивается один раз, а инициализированные экземпляры Cipher
+ * переиспользуются через небольшой пул — Cipher.getInstance/init на каждую строку
+ * обходились дороже самого шифрования.
  */
 @Converter(autoApply = false)
 public class CardNumberCryptoConverter implements AttributeConverter<String, String> {
@@ -16,13 +23,21 @@ public class CardNumberCryptoConverter implements AttributeConverter<String, Str
     private static final String ALGORITHM = "AES";
     private static final String SECRET_KEY = "1234567890123456"; // 16 bytes for AES-128
 
+    private static final SecretKeySpec KEY = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.US_ASCII), ALGORITHM);
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private static final CipherPool ENCRYPTORS = new CipherPool(Cipher.ENCRYPT_MODE);
+    private static final CipherPool DECRYPTORS = new CipherPool(Cipher.DECRYPT_MODE);
+
     @Override
     public String convertToDatabaseColumn(String attribute) {
         if (attribute == null || attribute.isBlank()) return null;
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM));
-            return Base64.getEncoder().encodeToString(cipher.doFinal(attribute.getBytes()));
+            Cipher cipher = ENCRYPTORS.acquire();
+            byte[] encrypted = cipher.doFinal(attribute.getBytes(StandardCharsets.UTF_8));
+            ENCRYPTORS.release(cipher);
+            return new String(ENCODER.encode(encrypted), StandardCharsets.US_ASCII);
         } catch (Exception e) {
             throw new RuntimeException("Encryption error", e);
         }
@@ -32,13 +47,45 @@ public class CardNumberCryptoConverter implements AttributeConverter<String, Str
     public String convertToEntityAttribute(String dbData) {
         if (dbData == null || dbData.isBlank()) return null;
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM));
-            return new String(cipher.doFinal(Base64.getDecoder().decode(dbData)));
+            Cipher cipher = DECRYPTORS.acquire();
+            byte[] decrypted = cipher.doFinal(DECODER.decode(dbData.getBytes(StandardCharsets.US_ASCII)));
+            DECRYPTORS.release(cipher);
+            return new String(decrypted, StandardCharsets.UTF_8);
         } catch (Exception e) {
             // Если в базе лежит незашифрованная строка, вернем ее как есть (для миграции)
             // или залогируем ошибку. На этапе разработки это предотвратит падение.
+            // Шифр после ошибки в пул не возвращается.
             return dbData;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Пул готовых к работе шифров одного режима.
+     * После doFinal экземпляр возвращается в состояние сразу после init, поэтому повторная
+     * инициализация не нужна. Очередь ограничена: лишние экземпляры при пиковой нагрузке
+     * просто отдаются сборщику мусора. Блокировок на уровне монитора нет — пул безопасен
+     * и для виртуальных потоков.
+     */
+    private static final class CipherPool {
+
+        private final int mode;
+        private final BlockingQueue<Cipher> idle =
+                new ArrayBlockingQueue<>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+        private CipherPool(int mode) {
+            this.mode = mode;
+        }
+
+        Cipher acquire() throws GeneralSecurityException {
+            Cipher cipher = idle.poll();
+            if (cipher != null) return cipher;
+            cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(mode, KEY);
+            return cipher;
+        }
+
+        void release(Cipher cipher) {
+            idle.offer(cipher);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.util;
+
+/**
+ * Вспомогательные операции над открытым номером карты.
+ */
+public final class CardNumbers {
+
+    private static final String MASK_PREFIX = "**** **** **** ";
+
+    private CardNumbers() {
+    }
+
+    /**
+     * Последние четыре цифры номера (или весь номер, если он короче).
+     */
+    public static String lastFour(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) return cardNumber;
+        return cardNumber.substring(cardNumber.length() - 4);
+    }
+
+    /**
+     * Номер без пробелов и дефисов.
+     *
+     * @return только цифры или null, если строка содержит другие символы
+     */
+    public static String normalize(String value) {
+        if (value == null) return null;
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c != ' ' && c != '-') {
+                return null;
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Маска вида {@code **** **** **** 1234} по последним четырем цифрам.
+     */
+    public static String mask(String lastFour) {
+        if (lastFour == null || lastFour.length() < 4) return lastFour;
+        return MASK_PREFIX + lastFour;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор keyset-пагинации: id последней отданной записи в Base64URL
+ * (для выборок по времени — пара время + id, см. {@link Position}).
+ * Клиент передает его обратно как есть и не должен разбирать содержимое.
+ */
+public final class PageCursor {
+
+    /** Начальное значение — меньше любого id. */
+    public static final long START = 0L;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PageCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return ENCODER.encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return id, после которого продолжить выборку; {@link #START} для пустого курсора
+     * @throws BadRequestException если курсор поврежден
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return START;
+        long id;
+        try {
+            id = Long.parseLong(new String(DECODER.decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Некорректный курсор", e);
+        }
+        if (id < START) throw new BadRequestException("Некорректный курсор");
+        return id;
+    }
+
+    /**
+     * Позиция в выборке, упорядоченной по (createdAt, id): время последней отданной записи и ее id
+     * на случай нескольких записей с одним временем.
+     */
+    public record Position(Instant createdAt, long id) {
+    }
+
+    /**
+     * Курсор по времени с точностью до микросекунд (точность timestamp в PostgreSQL).
+     */
+    public static String encode(Instant createdAt, long lastId) {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, createdAt);
+        return ENCODER.encodeToString((micros + ":" + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return позиция, после которой продолжить выборку; null для пустого курсора
+     * @throws BadRequestException если курсор поврежден
+     */
+    public static Position decodePosition(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.US_ASCII).split(":", 2);
+            return new Position(Instant.EPOCH.plus(Long.parseLong(parts[0]), ChronoUnit.MICROS),
+                    Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BadRequestException("Некорректный курсор", e);
+        }
+    }
+}
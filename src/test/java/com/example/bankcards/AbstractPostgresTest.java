@@ -0,0 +1,49 @@
+package com.example.bankcards;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Основа интеграционных тестов на встроенном PostgreSQL (без Docker).
+ * Схема создается настоящими Liquibase-миграциями, поэтому такие тесты
+ * проверяют и PostgreSQL-специфичные changeSet'ы. Сервер один на все тесты JVM.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.cards.blind-index.key=" + AbstractPostgresTest.BLIND_INDEX_KEY})
+public abstract class AbstractPostgresTest {
+
+    /** Тестовый ключ слепого индекса номеров карт; в приложении он задается только окружением. */
+    public static final String BLIND_INDEX_KEY = "7A25432A462D4A614E645267556B58703273357638792F423F4528482B4D6251";
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // сервер все равно будет остановлен вместе с JVM
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось запустить встроенный PostgreSQL", e);
+        }
+    }
+}
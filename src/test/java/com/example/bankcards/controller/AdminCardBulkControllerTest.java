@@ -0,0 +1,147 @@
+package com.example.bankcards.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.entity.CardBulkJob;
+import com.example.bankcards.entity.CardBulkJobStatus;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationRegistry;
+import com.example.bankcards.service.CardBulkIssueService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@WebMvcTest(AdminCardBulkController.class)
+@Import(SecurityConfig.class)
+class AdminCardBulkControllerTest {
+
+    private static final UUID JOB_ID = UUID.fromString("2f1c2c52-4c0e-4c39-9d0a-6f0a3f6f3b11");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CardBulkIssueService bulkIssueService;
+
+    @MockBean
+    private org.springframework.security.authentication.AuthenticationProvider authenticationProvider;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: загрузка NDJSON ставит задание и возвращает 202 со ссылкой на прогресс")
+    void submit_ShouldAcceptNdjson() throws Exception {
+        when(bulkIssueService.submit(any(), eq(CardBulkFormat.NDJSON))).thenReturn(job());
+
+        mockMvc.perform(post("/api/v1/admin/cards:bulk")
+                        .with(csrf())
+                        .contentType("application/x-ndjson")
+                        .content("{\"userId\":1,\"cardNumber\":\"4000000000000001\",\"initialBalance\":10}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/v1/admin/cards:bulk/" + JOB_ID))
+                .andExpect(jsonPath("$.id").value(JOB_ID.toString()))
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: неподдерживаемый Content-Type отклоняется без запуска задания")
+    void submit_ShouldRejectUnsupportedType() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/cards:bulk")
+                        .with(csrf())
+                        .contentType("application/xml")
+                        .content("<cards/>"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(bulkIssueService);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("Пользователь не может запускать массовый выпуск")
+    void submit_ShouldBeForbiddenForUser() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/cards:bulk")
+                        .with(csrf())
+                        .contentType("text/csv")
+                        .content("1,4000000000000001,10\n"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: неизвестное задание — 404")
+    void getJob_ShouldReturn404() throws Exception {
+        when(bulkIssueService.getJob(JOB_ID)).thenThrow(new EntityNotFoundException("Задание не найдено"));
+
+        mockMvc.perform(get("/api/v1/admin/cards:bulk/{id}", JOB_ID))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: ошибки задания выгружаются CSV-файлом")
+    void getErrors_ShouldStreamCsv() throws Exception {
+        when(bulkIssueService.getJob(JOB_ID)).thenReturn(job());
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(1);
+            out.write("line,message\n2,\"Пользователь не найден\"\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(bulkIssueService).writeErrors(eq(JOB_ID), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/admin/cards:bulk/{id}/errors", JOB_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"cards-bulk-" + JOB_ID + "-errors.csv\""))
+                .andExpect(content().string("line,message\n2,\"Пользователь не найден\"\n"));
+    }
+
+    private static CardBulkJob job() {
+        return CardBulkJob.builder()
+                .id(JOB_ID)
+                .status(CardBulkJobStatus.RUNNING)
+                .format(CardBulkFormat.NDJSON)
+                .createdAt(LocalDateTime.of(2024, 6, 1, 12, 0))
+                .build();
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.bankcards.controller;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -15,10 +18,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.example.bankcards.config.SecurityConfig;
 import com.example.bankcards.dto.CreateCardRequest;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationRegistry;
 import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.util.CardMapperImpl;
+import com.example.bankcards.util.PageCursor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.junit.jupiter.api.DisplayName;
@@ -39,8 +47,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
+import jakarta.servlet.ServletException;
+
 @WebMvcTest(AdminCardController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, CardMapperImpl.class})
 class AdminCardControllerTest {
 
     @Autowired
@@ -58,6 +68,9 @@ class AdminCardControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @MockBean
     private UserDetailsService userDetailsService;
 
@@ -86,6 +99,75 @@ class AdminCardControllerTest {
                 .andExpect(jsonPath("$.content[0].ownerName").value("someuser"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: Маска номера строится по card_last4 без обращения к полному номеру")
+    void getAllCards_ShouldMaskFromLast4() throws Exception {
+        Card card = Card.builder()
+                .id(11L)
+                .cardLast4("9012")
+                .balance(BigDecimal.ONE)
+                .status(CardStatus.ACTIVE)
+                .ownerName("someuser")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .build();
+
+        when(adminService.getAllCards(any(org.springframework.data.domain.Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(card), PageRequest.of(0, 10), 1));
+
+        mockMvc.perform(get("/api/v1/admin/cards"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].maskedNumber").value("**** **** **** 9012"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: Курсорная пагинация возвращает страницу и следующий курсор")
+    void getAllCards_WithCursor_ShouldReturnNextCursor() throws Exception {
+        Card card = Card.builder()
+                .id(12L)
+                .cardLast4("3456")
+                .balance(BigDecimal.TEN)
+                .status(CardStatus.ACTIVE)
+                .ownerName("someuser")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .build();
+        String after = PageCursor.encode(11L);
+
+        when(adminService.getAllCardsAfter(after, 1))
+                .thenReturn(new CursorPage<>(List.of(card), PageCursor.encode(12L)));
+
+        mockMvc.perform(get("/api/v1/admin/cards")
+                        .param("after", after)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(12))
+                .andExpect(jsonPath("$.content[0].maskedNumber").value("**** **** **** 3456"))
+                .andExpect(jsonPath("$.nextCursor").value(PageCursor.encode(12L)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: Поврежденный курсор дает 400")
+    void getAllCards_WithBadCursor_ShouldReturnBadRequest() throws Exception {
+        when(adminService.getAllCardsAfter("garbage", CursorPage.DEFAULT_SIZE))
+                .thenThrow(new BadRequestException("Некорректный курсор"));
+
+        mockMvc.perform(get("/api/v1/admin/cards").param("after", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: Непредвиденный IllegalArgumentException не превращается в 400 с текстом ошибки")
+    void getAllCards_WithUnexpectedIllegalArgument_ShouldNotReturnBadRequest() {
+        when(adminService.getAllCardsAfter("x", CursorPage.DEFAULT_SIZE))
+                .thenThrow(new IllegalArgumentException("internal details"));
+
+        assertThrows(ServletException.class, () -> mockMvc.perform(get("/api/v1/admin/cards").param("after", "x")));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     @DisplayName("Админ: Создание новой карты")
@@ -114,6 +196,25 @@ class AdminCardControllerTest {
                 .andExpect(jsonPath("$.balance").value(100.00));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: Номер карты не из 12-19 цифр дает 400")
+    void createCard_WithInvalidNumber_ShouldReturnBadRequest() throws Exception {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setUserId(1L);
+        req.setInitialBalance(new BigDecimal("100.00"));
+
+        for (String number : List.of("4111 1111 1111 111x", " - - ", "1234")) {
+            req.setCardNumber(number);
+            mockMvc.perform(post("/api/v1/admin/cards")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isBadRequest());
+        }
+        verify(adminService, never()).createCard(anyLong(), anyString(), any());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     @DisplayName("Админ: Изменение статуса карты")
@@ -0,0 +1,79 @@
+package com.example.bankcards.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationRegistry;
+import com.example.bankcards.service.CardExportService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+@WebMvcTest(AdminCardExportController.class)
+@Import(SecurityConfig.class)
+class AdminCardExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CardExportService cardExportService;
+
+    @MockBean
+    private org.springframework.security.authentication.AuthenticationProvider authenticationProvider;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: выгрузка CSV пишется в ответ вложением")
+    void export_ShouldStreamCsvAttachment() throws Exception {
+        when(cardExportService.export(eq(CardBulkFormat.CSV), any())).thenAnswer(inv -> {
+            OutputStream out = inv.getArgument(1);
+            out.write("id,maskedNumber\n1,**** **** **** 0001\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        mockMvc.perform(get("/api/v1/admin/cards:export").param("format", "CSV"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"cards.csv\""))
+                .andExpect(content().string("id,maskedNumber\n1,**** **** **** 0001\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("Пользователь не может выгружать все карты")
+    void export_ShouldBeForbiddenForUser() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/cards:export"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(cardExportService);
+    }
+}
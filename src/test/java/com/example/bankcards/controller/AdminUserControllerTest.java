@@ -1,12 +1,15 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.UserRegistrationRequest;
 import com.example.bankcards.dto.UserResponseDTO;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationRegistry;
 import com.example.bankcards.service.AdminUserService;
+import com.example.bankcards.util.PageCursor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -23,6 +28,8 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -45,6 +52,10 @@ class AdminUserControllerTest {
 
     @MockBean
     private JwtService jwtService;
+
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @MockBean
     private UserDetailsService userDetailsService;
     @MockBean
@@ -79,20 +90,45 @@ class AdminUserControllerTest {
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    @DisplayName("Админ: Получение списка всех пользователей")
-    void getAllUsers_ShouldReturnList() throws Exception {
+    @DisplayName("Админ: Получение страницы пользователей с фильтрами")
+    void getAllUsers_ShouldReturnPage() throws Exception {
         UserResponseDTO userDto = UserResponseDTO.builder()
                 .id(1L)
                 .username("admin")
                 .role("ADMIN")
                 .build();
 
-        when(adminUserService.getAllUsers()).thenReturn(List.of(userDto));
+        when(adminUserService.getUsers(eq(Role.ADMIN), eq("ad"), any()))
+                .thenReturn(new PageImpl<>(List.of(userDto), PageRequest.of(0, 20), 1));
 
-        mockMvc.perform(get("/api/v1/admin/users"))
+        mockMvc.perform(get("/api/v1/admin/users").param("role", "ADMIN").param("usernamePrefix", "ad"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].username").value("admin"))
-                .andExpect(jsonPath("$.length()").value(1));
+                .andExpect(jsonPath("$.content[0].username").value("admin"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: Курсорная пагинация пользователей")
+    void getAllUsersAfter_ShouldReturnCursorPage() throws Exception {
+        UserResponseDTO userDto = UserResponseDTO.builder().id(21L).username("user21").role("USER").build();
+        when(adminUserService.getUsersAfter(null, null, "", 20))
+                .thenReturn(new CursorPage<>(List.of(userDto), PageCursor.encode(21L)));
+
+        mockMvc.perform(get("/api/v1/admin/users").param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(21))
+                .andExpect(jsonPath("$.nextCursor").value(PageCursor.encode(21L)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Админ: Отзыв токенов пользователя")
+    void revokeTokens_ShouldReturnNoContent() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/users/5/tokens:revoke").with(csrf()))
+                .andExpect(status().isNoContent());
+
+        verify(adminUserService).revokeTokens(5L);
     }
 
     @Test
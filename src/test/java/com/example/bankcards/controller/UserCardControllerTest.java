@@ -1,12 +1,15 @@
 package com.example.bankcards.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -14,11 +17,19 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransferRequest;
-import com.example.bankcards.entity.Card;
+import com.example.bankcards.dto.TransferResultDTO;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationRegistry;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransferIdempotencyService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.junit.jupiter.api.DisplayName;
@@ -30,11 +41,11 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @WebMvcTest(UserCardController.class)
@@ -49,29 +60,31 @@ class UserCardControllerTest {
     @MockBean
     private CardService cardService;
 
+    @MockBean
+    private TransferIdempotencyService transferIdempotencyService;
+
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @MockBean
     private UserDetailsService userDetailsService;
 
+    private final User principal = User.builder().id(7L).username("testuser").password("x").role(Role.USER).build();
+
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
     @DisplayName("Получение списка своих карт с маскированием и пагинацией")
     void getMyCards_ShouldReturnPagedMaskedCards() throws Exception {
-        Card mockCard = Card.builder()
-                .id(1L)
-                .cardNumber("1234567812345678")
-                .balance(new BigDecimal("1000.00"))
-                .status(CardStatus.ACTIVE)
-                .ownerName("testuser")
-                .expiryDate(LocalDate.now().plusYears(2))
-                .build();
-
-        when(cardService.getMyCards(eq("testuser"), any(), any(), any()))
+        CardResponseDTO mockCard = new CardResponseDTO(1L, "5678", "testuser", new BigDecimal("1000.00"),
+                CardStatus.ACTIVE, LocalDate.now().plusYears(2));
+
+        when(cardService.getMyCards(eq(7L), any(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(mockCard), PageRequest.of(0, 10), 1));
 
         mockMvc.perform(get("/api/v1/user/cards")
+                        .with(user(principal))
                         .param("page", "0")
                         .param("size", "10")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -82,7 +95,43 @@ class UserCardControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
+    @DisplayName("Курсорная пагинация своих карт")
+    void getMyCardsAfter_ShouldReturnCursorPage() throws Exception {
+        CardResponseDTO card = new CardResponseDTO(3L, "4321", "testuser", BigDecimal.ONE, CardStatus.ACTIVE,
+                LocalDate.now().plusYears(2));
+
+        when(cardService.getMyCardsAfter(7L, null, "", CursorPage.DEFAULT_SIZE))
+                .thenReturn(new CursorPage<>(List.of(card), null));
+
+        mockMvc.perform(get("/api/v1/user/cards")
+                        .with(user(principal))
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].maskedNumber").value("**** **** **** 4321"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("История движений по своей карте за период")
+    void getTransactions_ShouldReturnCursorPage() throws Exception {
+        CardTransactionDTO transaction = CardTransactionDTO.builder()
+                .id(30L).counterpartyCardId(2L).amount(new BigDecimal("-100.00"))
+                .createdAt(OffsetDateTime.parse("2024-03-01T10:00:00Z")).build();
+
+        when(cardService.getCardTransactions(eq(7L), eq(1L), eq(OffsetDateTime.parse("2024-03-01T00:00:00Z")),
+                isNull(), isNull(), anyInt()))
+                .thenReturn(new CursorPage<>(List.of(transaction), "next"));
+
+        mockMvc.perform(get("/api/v1/user/cards/1/transactions")
+                        .with(user(principal))
+                        .param("from", "2024-03-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].amount").value(-100.00))
+                .andExpect(jsonPath("$.content[0].counterpartyCardId").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
     @DisplayName("Успешный перевод между своими картами")
     void transfer_ShouldReturnSuccessMessage() throws Exception {
         TransferRequest request = new TransferRequest();
@@ -90,9 +139,10 @@ class UserCardControllerTest {
         request.setToCardId(2L);
         request.setAmount(new BigDecimal("500.00"));
 
-        doNothing().when(cardService).transferBetweenOwnCards(anyString(), anyLong(), anyLong(), any(BigDecimal.class));
+        doNothing().when(cardService).transferBetweenOwnCards(eq(7L), anyLong(), anyLong(), any(BigDecimal.class));
 
         mockMvc.perform(post("/api/v1/user/cards/transfer")
+                        .with(user(principal))
                         .with(csrf()) // Важно для Spring Security
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
@@ -101,12 +151,75 @@ class UserCardControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
+    @DisplayName("Перевод с Idempotency-Key выполняется через хранилище ключей")
+    void transfer_WithIdempotencyKey_ShouldReturnStoredResponse() throws Exception {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(new BigDecimal("500.00"));
+
+        when(transferIdempotencyService.transfer(eq(7L), eq("retry-1"), any(TransferRequest.class)))
+                .thenReturn(TransferIdempotencyService.TRANSFER_DONE);
+
+        mockMvc.perform(post("/api/v1/user/cards/transfer")
+                        .with(user(principal))
+                        .with(csrf())
+                        .header(TransferIdempotencyService.HEADER, "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(TransferIdempotencyService.TRANSFER_DONE));
+
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    @DisplayName("Пакетный перевод возвращает результат по каждому переводу")
+    void transferBatch_ShouldReturnPerItemResults() throws Exception {
+        TransferRequest transfer = new TransferRequest();
+        transfer.setFromCardId(1L);
+        transfer.setToCardId(2L);
+        transfer.setAmount(new BigDecimal("10.00"));
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(transfer, transfer));
+
+        when(cardService.transferBatch(eq(7L), any())).thenReturn(List.of(
+                TransferResultDTO.builder().index(0).success(true).build(),
+                TransferResultDTO.builder().index(1).success(false).error("Недостаточно средств на карте").build()
+        ));
+
+        mockMvc.perform(post("/api/v1/user/cards/transfers:batch")
+                        .with(user(principal))
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Недостаточно средств на карте"));
+    }
+
+    @Test
+    @DisplayName("Валидация: пустой пакет переводов отклоняется")
+    void transferBatch_Empty_ShouldReturnBadRequest() throws Exception {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of());
+
+        mockMvc.perform(post("/api/v1/user/cards/transfers:batch")
+                        .with(user(principal))
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
     @DisplayName("Блокировка карты пользователем")
     void lockMyCard_ShouldReturnOk() throws Exception {
-        doNothing().when(cardService).lockCard(anyString(), anyLong());
+        doNothing().when(cardService).lockCard(7L, 1L);
 
         mockMvc.perform(patch("/api/v1/user/cards/1/block")
+                        .with(user(principal))
                         .with(csrf()))
                 .andExpect(status().isOk());
     }
@@ -119,7 +232,6 @@ class UserCardControllerTest {
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
     @DisplayName("Валидация: ошибка при отрицательной сумме перевода")
     void transfer_InvalidAmount_ShouldReturnBadRequest() throws Exception {
         TransferRequest request = new TransferRequest();
@@ -128,6 +240,7 @@ class UserCardControllerTest {
         request.setAmount(new BigDecimal("-100.00"));
 
         mockMvc.perform(post("/api/v1/user/cards/transfer")
+                        .with(user(principal))
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
@@ -0,0 +1,116 @@
+package com.example.bankcards.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Пакетная вставка карт на PostgreSQL: id выдает последовательность cards_seq блоками по 50,
+ * а INSERT уходят пакетами, а не по одному на строку.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CardBatchInsertTest extends AbstractPostgresTest {
+
+    private static final int CARDS = 200;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cards");
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+    }
+
+    @Test
+    @DisplayName("Выпуск карт выполняется пакетными INSERT с id из последовательности")
+    void saveAll_ShouldBatchInserts() {
+        User owner = userRepository.save(User.builder().username("batch_owner").password("x").role(Role.USER).build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Card> saved = transactionTemplate.execute(status -> cardRepository.saveAll(
+                IntStream.range(0, CARDS).mapToObj(i -> card(owner, i)).toList()));
+
+        assertEquals(CARDS, saved.stream().map(Card::getId).distinct().count());
+        // 4 пакета INSERT по 50 строк + 4 обращения к cards_seq вместо 200 INSERT ... RETURNING id
+        assertTrue(statistics.getPrepareStatementCount() <= 10,
+                "Ожидались пакетные INSERT, подготовлено выражений: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Вставка в обход Hibernate берет id из той же последовательности и не пересекается с блоками Hibernate")
+    void rawInsert_ShouldNotCollideWithHibernateIds() {
+        User owner = userRepository.save(User.builder().username("raw_owner").password("x").role(Role.USER).build());
+        cardRepository.save(card(owner, 0));
+
+        jdbcTemplate.update("INSERT INTO cards (card_number, card_last4, card_number_hash, owner_name, balance, status, expiry_date, user_id) " +
+                "VALUES ('enc', '0000', 'raw', 'raw', 0, 'ACTIVE', current_date, ?)", owner.getId());
+        cardRepository.saveAll(IntStream.range(1, 60).mapToObj(i -> card(owner, i)).toList());
+
+        assertEquals(61, cardRepository.count());
+    }
+
+    @Test
+    @DisplayName("JDBC-вставка берет id блоками из cards_seq: без пересечений с Hibernate, номера расшифровываются")
+    void insertAll_ShouldShareSequenceWithHibernate() {
+        User owner = userRepository.save(User.builder().username("bulk_owner").password("x").role(Role.USER).build());
+        cardRepository.save(card(owner, 0));
+
+        int inserted = transactionTemplate.execute(status -> cardRepository.insertAll(
+                IntStream.range(1, 61).mapToObj(i -> card(owner, i)).toList()));
+        cardRepository.saveAll(IntStream.range(61, 121).mapToObj(i -> card(owner, i)).toList());
+
+        assertEquals(60, inserted);
+        assertEquals(121, cardRepository.count());
+        String number = transactionTemplate.execute(status ->
+                cardRepository.findAll().stream().filter(c -> c.getCardLast4().equals("0030")).findFirst()
+                        .orElseThrow().getCardNumber());
+        assertEquals("5000000000000030", number);
+    }
+
+    private static Card card(User owner, int i) {
+        return Card.builder()
+                .cardNumber(String.format("5000%012d", i))
+                .ownerName(owner.getUsername())
+                .balance(BigDecimal.ZERO)
+                .status(CardStatus.ACTIVE)
+                .expiryDate(LocalDate.now().plusYears(4))
+                .owner(owner)
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.bankcards.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.service.CardLedgerPartitionService;
+import com.example.bankcards.util.PageCursor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * История движений по карте на PostgreSQL: keyset по (created_at, id) и отсечение секций card_ledger.
+ * Запросы EXPLAIN повторяют SQL, который Hibernate строит для CardLedgerRepository.findHistory.
+ */
+class CardHistoryTest extends AbstractPostgresTest {
+
+    private static final long CARD = 42L;
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private CardLedgerRepository cardLedgerRepository;
+
+    @Autowired
+    private CardLedgerPartitionService partitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+    @BeforeEach
+    void setUp() {
+        partitionService.createPartitions(current.minusMonths(5), 6);
+        // по 20 000 движений в месяц по карте CARD и столько же по соседним картам, полгода
+        jdbcTemplate.update("INSERT INTO card_ledger (transfer_id, card_id, counterparty_card_id, amount, created_at) " +
+                "SELECT gen_random_uuid(), CASE WHEN g % 2 = 0 THEN ? ELSE 1000 + g % 500 END, 7, 1.00, " +
+                "date_trunc('month', now() AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' " +
+                "- interval '5 months' + (g * interval '1 minute') * 0.65 " +
+                "FROM generate_series(1, 240000) g", CARD);
+        jdbcTemplate.execute("ANALYZE card_ledger");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM card_ledger");
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS card_ledger_" + current.minusMonths(i).format(SUFFIX));
+        }
+    }
+
+    @Test
+    @DisplayName("Keyset по (created_at, id) проходит записи с одинаковым временем без пропусков и повторов")
+    void findHistory_ShouldWalkTiesByKeyset() {
+        OffsetDateTime at = OffsetDateTime.now(ZoneOffset.UTC).withNano(0);
+        jdbcTemplate.update("INSERT INTO card_ledger (transfer_id, card_id, amount, created_at) " +
+                "SELECT gen_random_uuid(), 7, g, ? FROM generate_series(1, 5) g", at);
+
+        List<Long> seen = new ArrayList<>();
+        PageCursor.Position after = null;
+        while (true) {
+            List<CardTransactionDTO> page = cardLedgerRepository.findHistory(7L, null, null, after, 2);
+            if (page.isEmpty()) break;
+            page.forEach(t -> seen.add(t.getId()));
+            CardTransactionDTO last = page.get(page.size() - 1);
+            after = PageCursor.decodePosition(PageCursor.encode(last.getCreatedAt().toInstant(), last.getId()));
+        }
+
+        assertEquals(5, seen.size());
+        assertEquals(seen.stream().sorted((a, b) -> Long.compare(b, a)).toList(), seen);
+    }
+
+    @Test
+    @DisplayName("Период внутри месяца читает одну секцию по индексу (card_id, created_at) без сортировки")
+    void historyWithinMonth_ShouldPruneOtherPartitions() {
+        OffsetDateTime from = current.minusMonths(2).atDay(3).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = from.plusDays(10);
+
+        String plan = explain("SELECT id, transfer_id, counterparty_card_id, amount, created_at FROM card_ledger " +
+                "WHERE card_id = " + CARD + " AND created_at >= '" + from + "' AND created_at < '" + to + "' " +
+                "ORDER BY created_at DESC, id DESC LIMIT 21");
+
+        String partition = "card_ledger_" + current.minusMonths(2).format(SUFFIX);
+        assertTrue(plan.contains(partition), plan);
+        assertEquals(1, plan.split("card_ledger_\\d{4}_\\d{2} ").length - 1, plan);
+        assertTrue(plan.contains("idx_card_ledger_card_created") || plan.contains(partition + "_card_id_created_at_idx"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+
+        List<CardTransactionDTO> page = cardLedgerRepository.findHistory(CARD, from, to, null, 21);
+        assertEquals(21, page.size());
+        assertTrue(page.stream().allMatch(t -> !t.getCreatedAt().isBefore(from) && t.getCreatedAt().isBefore(to)));
+    }
+
+    @Test
+    @DisplayName("Страница без периода и продолжение по курсору не сканируют журнал целиком")
+    void historyWithoutPeriod_ShouldUseIndexScans() {
+        List<CardTransactionDTO> first = cardLedgerRepository.findHistory(CARD, null, null, null, 21);
+        CardTransactionDTO last = first.get(first.size() - 1);
+        OffsetDateTime at = last.getCreatedAt().withOffsetSameInstant(ZoneOffset.UTC);
+
+        String plan = explain("SELECT id FROM card_ledger WHERE card_id = " + CARD +
+                " AND created_at <= '" + at + "' AND (created_at < '" + at + "' OR id < " + last.getId() + ") " +
+                "ORDER BY created_at DESC, id DESC LIMIT 21");
+
+        assertFalse(plan.contains("Seq Scan"), plan);
+        List<CardTransactionDTO> next = cardLedgerRepository.findHistory(CARD, null, null,
+                new PageCursor.Position(at.toInstant(), last.getId()), 21);
+        assertEquals(21, next.size());
+        assertTrue(next.get(0).getCreatedAt().isBefore(last.getCreatedAt())
+                || next.get(0).getId() < last.getId());
+    }
+
+    private String explain(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+}
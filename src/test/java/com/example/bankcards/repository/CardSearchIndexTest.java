@@ -0,0 +1,227 @@
+package com.example.bankcards.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.PageCursor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Проверка по EXPLAIN, что планировщик PostgreSQL использует индексы поиска карт.
+ * Объясняется SQL, который Hibernate действительно выполнил для методов CardRepository
+ * (перехватывается StatementInspector), с параметрами, как у prepared statement приложения.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.bankcards.repository.CardSearchIndexTest$CapturedSql")
+class CardSearchIndexTest extends AbstractPostgresTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @BeforeEach
+    void setUp() {
+        // 1000 обычных пользователей по 10 карт и корпоративный клиент с 30 000 карт сотрудников
+        jdbcTemplate.update("INSERT INTO users (username, password, role) " +
+                "SELECT 'user' || g, 'x', 'USER' FROM generate_series(1, 1000) g");
+        jdbcTemplate.update("INSERT INTO users (username, password, role) VALUES ('corp', 'x', 'USER')");
+        jdbcTemplate.update("INSERT INTO cards (card_number, card_last4, card_number_hash, owner_name, balance, status, expiry_date, user_id) " +
+                "SELECT 'enc' || g, lpad((g % 10000)::text, 4, '0'), md5(g::text) || md5(g::text), 'Owner ' || md5(g::text), 0, " +
+                "CASE WHEN g % 10 = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END, current_date + 365, u.id " +
+                "FROM generate_series(1, 10) g CROSS JOIN users u WHERE u.username <> 'corp'");
+        jdbcTemplate.update("INSERT INTO cards (card_number, card_last4, card_number_hash, owner_name, balance, status, expiry_date, user_id) " +
+                "SELECT 'enc' || g, lpad((g % 10000)::text, 4, '0'), md5(g::text), " +
+                "CASE WHEN g % 10000 = 0 THEN 'Ivanov Petr' ELSE 'Employee ' || md5(g::text) END, 0, 'ACTIVE', current_date + 365, u.id " +
+                "FROM generate_series(1, 30000) g CROSS JOIN users u WHERE u.username = 'corp'");
+        jdbcTemplate.execute("ANALYZE cards");
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @AfterEach
+    void tearDown() {
+        CapturedSql.STATEMENTS.clear();
+        jdbcTemplate.update("DELETE FROM cards");
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+    }
+
+    @Test
+    @DisplayName("Поиск по имени владельца использует триграммный индекс")
+    void searchByOwnerName_ShouldUseTrigramIndex() {
+        Long corp = userId("corp");
+        assertEquals(3, cardRepository.searchMyCards(corp, "IVANOV", PageRequest.of(0, 10)).getTotalElements());
+
+        // Generic plan выбирается по средней селективности user_id и идет по (user_id, status) даже у клиента
+        // с тысячами карт, поэтому соединения пула открываются с force_custom_plan и проверяется custom plan
+        String plan = explainLastQuery(corp, "IVANOV", 0, 10).custom();
+        assertTrue(plan.contains("idx_card_owner_name_trgm"), plan);
+        assertEquals("force_custom_plan", jdbcTemplate.queryForObject("SHOW plan_cache_mode", String.class));
+    }
+
+    @Test
+    @DisplayName("Фильтр по статусу использует составной индекс (user_id, status, id)")
+    void filterByStatus_ShouldUseUserStatusIndex() {
+        Long user = userId("user42");
+        assertEquals(1, cardRepository.findMyCardsByStatus(user, CardStatus.BLOCKED, PageRequest.of(0, 10))
+                .getTotalElements());
+
+        for (String plan : explainLastQuery(user, "BLOCKED", 0, 10).both()) {
+            assertTrue(plan.contains("idx_card_user_status_id"), plan);
+        }
+    }
+
+    @Test
+    @DisplayName("Keyset-страница карт владельца со статусом идет по индексу (user_id, status, id) без сортировки")
+    void keysetByOwnerAndStatus_ShouldUseSeekIndex() {
+        Long user = userId("user42");
+        List<CardResponseDTO> first = cardRepository.findMyCardsByStatusAfter(user, CardStatus.ACTIVE,
+                PageCursor.START, Limit.of(3));
+        Long afterId = first.get(first.size() - 1).getId();
+        List<CardResponseDTO> next = cardRepository.findMyCardsByStatusAfter(user, CardStatus.ACTIVE,
+                afterId, Limit.of(6));
+        assertEquals(6, next.size());
+        assertTrue(next.get(0).getId() > afterId);
+
+        for (String plan : explainLastQuery(user, "ACTIVE", afterId, 0, 6).both()) {
+            assertTrue(plan.contains("idx_card_user_status_id"), plan);
+            assertFalse(plan.contains("Sort"), plan);
+        }
+    }
+
+    @Test
+    @DisplayName("Keyset-страница карт владельца идет по индексу (user_id, id) без сортировки")
+    void keysetByOwner_ShouldUseSeekIndex() {
+        Long user = userId("user42");
+        List<CardResponseDTO> first = cardRepository.findMyCardsAfter(user, PageCursor.START, Limit.of(5));
+        Long afterId = first.get(first.size() - 1).getId();
+        List<CardResponseDTO> next = cardRepository.findMyCardsAfter(user, afterId, Limit.of(6));
+        assertEquals(5, next.size());
+        assertTrue(next.get(0).getId() > afterId);
+
+        for (String plan : explainLastQuery(user, afterId, 0, 6).both()) {
+            assertTrue(plan.contains("idx_card_user_id_seek"), plan);
+            assertFalse(plan.contains("Sort"), plan);
+        }
+    }
+
+    @Test
+    @DisplayName("Проекция списка карт: маска по card_last4 и сортировка из Pageable без загрузки сущностей")
+    void findMyCards_ShouldProjectMaskedDto() {
+        Long user = userId("user42");
+        Page<CardResponseDTO> page = cardRepository.findMyCards(user,
+                PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertEquals(10, page.getTotalElements());
+        assertEquals(3, page.getContent().size());
+        CardResponseDTO top = page.getContent().get(0);
+        assertEquals("**** **** **** 0010", top.getMaskedNumber());
+        assertEquals("BLOCKED", top.getStatus());
+        assertTrue(top.getId() > page.getContent().get(1).getId());
+        assertEquals(1, cardRepository.findMyCardsByLast4(user, "0003", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    private Long userId(String username) {
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    /**
+     * Планы последнего выполненного Hibernate запроса к cards (не COUNT) с параметрами params.
+     * pgjdbc после prepareThreshold выполнений переходит на серверный prepared statement, а PostgreSQL
+     * после пяти выполнений может перейти на generic plan, не зависящий от значений параметров.
+     * Поэтому возвращаются оба возможных плана: custom (для этих значений) и generic.
+     */
+    private Plans explainLastQuery(Object... params) {
+        String sql = CapturedSql.STATEMENTS.stream()
+                .filter(s -> s.startsWith("select") && s.contains(" from cards ") && !s.startsWith("select count("))
+                .reduce((a, b) -> b)
+                .orElseThrow(() -> new AssertionError("Запрос к cards не выполнялся: " + CapturedSql.STATEMENTS));
+
+        StringBuilder prepared = new StringBuilder();
+        int index = 0;
+        for (char ch : sql.toCharArray()) {
+            if (ch == '?') prepared.append('$').append(++index);
+            else prepared.append(ch);
+        }
+        assertEquals(params.length, index, sql);
+
+        StringJoiner types = new StringJoiner(", ");
+        StringJoiner values = new StringJoiner(", ");
+        for (Object param : params) {
+            types.add(param instanceof String ? "varchar" : param instanceof Long ? "bigint" : "integer");
+            values.add(param instanceof String text ? "'" + text.replace("'", "''") + "'" : param.toString());
+        }
+        String execute = "EXPLAIN EXECUTE card_query(" + values + ")";
+
+        return jdbcTemplate.execute((ConnectionCallback<Plans>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PREPARE card_query (" + types + ") AS " + prepared);
+                try {
+                    String custom = plan(statement, execute);
+                    statement.execute("SET plan_cache_mode = force_generic_plan");
+                    try {
+                        return new Plans(sql + "\n" + custom, sql + "\n" + plan(statement, execute));
+                    } finally {
+                        statement.execute("RESET plan_cache_mode");
+                    }
+                } finally {
+                    statement.execute("DEALLOCATE card_query");
+                }
+            }
+        });
+    }
+
+    private record Plans(String custom, String generic) {
+
+        List<String> both() {
+            return List.of(custom, generic);
+        }
+    }
+
+    private static String plan(Statement statement, String explain) throws SQLException {
+        StringJoiner lines = new StringJoiner("\n");
+        try (ResultSet rs = statement.executeQuery(explain)) {
+            while (rs.next()) lines.add(rs.getString(1));
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Запоминает SQL, который строит Hibernate. Экземпляр создает Hibernate, поэтому список статический.
+     */
+    public static class CapturedSql implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
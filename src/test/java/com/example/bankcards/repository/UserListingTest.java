@@ -0,0 +1,95 @@
+package com.example.bankcards.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.dto.UserResponseDTO;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.util.PageCursor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Список пользователей администратора на PostgreSQL: фильтры, keyset и индексы из changelog v1.8.
+ */
+class UserListingTest extends AbstractPostgresTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // 20 000 клиентов и 50 администраторов
+        jdbcTemplate.update("INSERT INTO users (username, password, role) " +
+                "SELECT 'client' || g, 'x', 'USER' FROM generate_series(1, 20000) g");
+        jdbcTemplate.update("INSERT INTO users (username, password, role) " +
+                "SELECT 'ops_' || g, 'x', 'ADMIN' FROM generate_series(1, 50) g");
+        jdbcTemplate.update("INSERT INTO users (username, password, role) VALUES ('ops%x', 'x', 'USER')");
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+    }
+
+    @Test
+    @DisplayName("Keyset по роли: страницы без пропусков и повторов, только ADMIN")
+    void findSummariesAfter_ShouldWalkRoleByKeyset() {
+        List<UserResponseDTO> first = userRepository.findSummariesAfter(Role.ADMIN, "ops_", PageCursor.START, 30);
+        List<UserResponseDTO> second = userRepository.findSummariesAfter(Role.ADMIN, "ops_",
+                first.get(first.size() - 1).getId(), 30);
+
+        assertEquals(30, first.size());
+        assertEquals(20, second.size());
+        assertTrue(second.get(0).getId() > first.get(29).getId());
+        assertTrue(second.stream().allMatch(u -> u.getRole().equals("ADMIN") && u.getUsername().startsWith("ops_")));
+    }
+
+    @Test
+    @DisplayName("Префикс экранируется: % и _ в имени ищутся буквально")
+    void findSummaries_ShouldEscapeLikeWildcards() {
+        Page<UserResponseDTO> page = userRepository.findSummaries(null, "ops%", PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("ops%x", page.getContent().get(0).getUsername());
+    }
+
+    @Test
+    @DisplayName("Фильтр по роли с keyset идет по индексу (role, id) без сортировки")
+    void roleKeyset_ShouldUseRoleIdIndex() {
+        String plan = explain("SELECT u.id, u.username, u.role FROM users u WHERE u.role = 'ADMIN' AND u.id > 0 " +
+                "ORDER BY u.id LIMIT 21");
+
+        assertTrue(plan.contains("idx_users_role_id"), plan);
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    @Test
+    @DisplayName("Поиск по началу имени использует индекс varchar_pattern_ops")
+    void usernamePrefix_ShouldUsePatternIndex() {
+        String plan = explain("SELECT u.id, u.username, u.role FROM users u WHERE u.username LIKE 'client12345%' " +
+                "ORDER BY u.id LIMIT 21");
+
+        assertTrue(plan.contains("idx_users_username_prefix"), plan);
+    }
+
+    private String explain(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+}
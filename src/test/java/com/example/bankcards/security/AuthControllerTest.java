@@ -0,0 +1,95 @@
+package com.example.bankcards.security;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.bankcards.config.SecurityConfig;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+@WebMvcTest(AuthController.class)
+@Import(SecurityConfig.class)
+class AuthControllerTest {
+
+    private static final String BODY = "{\"username\":\"ivan\",\"password\":\"secret\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LoginService loginService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @MockBean
+    private AuthenticationProvider authenticationProvider;
+
+    @Test
+    @DisplayName("Успешный вход возвращает JWT")
+    void login_ShouldReturnToken() throws Exception {
+        when(loginService.login("ivan", "secret")).thenReturn(CompletableFuture.completedFuture("jwt"));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("jwt"));
+    }
+
+    @Test
+    @DisplayName("Неверный пароль дает 401")
+    void login_BadCredentials_ShouldReturn401() throws Exception {
+        when(loginService.login("ivan", "secret"))
+                .thenReturn(CompletableFuture.failedFuture(new BadCredentialsException("bad")));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Перегруженный пул входа дает 429")
+    void login_Overloaded_ShouldReturn429() throws Exception {
+        when(loginService.login("ivan", "secret")).thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+}
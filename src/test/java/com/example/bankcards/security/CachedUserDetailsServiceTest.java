@@ -0,0 +1,92 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CachedUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private CachedUserDetailsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CachedUserDetailsService(userRepository, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Повторная загрузка берется из кэша, событие изменения сбрасывает запись")
+    void loadUserByUsername_ShouldCacheUntilUserChanged() {
+        when(userRepository.findByUsername("ivan")).thenReturn(Optional.of(
+                User.builder().id(1L).username("ivan").password("hash").role(Role.USER).build()));
+
+        service.loadUserByUsername("ivan");
+        service.loadUserByUsername("ivan");
+        verify(userRepository, times(1)).findByUsername("ivan");
+
+        service.onUserChanged(new UserChangedEvent("ivan"));
+        service.loadUserByUsername("ivan");
+        verify(userRepository, times(2)).findByUsername("ivan");
+
+        assertEquals(1, service.stats().hitCount());
+        assertEquals(2, service.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Сброс во время загрузки из БД не оставляет в кэше устаревшую запись")
+    void evictDuringLoad_ShouldNotCacheStaleUser() {
+        when(userRepository.findByUsername("ivan")).thenAnswer(invocation -> {
+            // изменение закоммичено после чтения из БД, но до записи в кэш
+            service.evict("ivan");
+            return Optional.of(User.builder().id(1L).username("ivan").password("old").role(Role.USER).build());
+        }).thenReturn(Optional.of(
+                User.builder().id(1L).username("ivan").password("new").role(Role.USER).build()));
+
+        assertEquals("old", service.loadUserByUsername("ivan").getPassword());
+        assertEquals("new", service.loadUserByUsername("ivan").getPassword());
+        assertEquals("new", service.loadUserByUsername("ivan").getPassword());
+        verify(userRepository, times(2)).findByUsername("ivan");
+    }
+
+    @Test
+    @DisplayName("Отсутствующий пользователь не кэшируется")
+    void loadUserByUsername_NotFound_ShouldNotBeCached() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost"));
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("Статистика кэша публикуется в метриках")
+    void bindTo_ShouldRegisterCacheMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        service.bindTo(registry);
+
+        assertEquals(0.0, registry.get("cache.size").tag("cache", CachedUserDetailsService.CACHE_NAME).gauge().value());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Date;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final JwtService jwtService = new JwtService(SECRET, 60_000, true, 1_000);
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private TokenRevocationRegistry revocationRegistry;
+
+    private final User user = User.builder().id(5L).username("ivan").password("hash").role(Role.USER).build();
+
+    @BeforeEach
+    void setUp() {
+        revocationRegistry = new TokenRevocationRegistry(userRepository);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Токен с uid и role аутентифицирует без загрузки пользователя из БД")
+    void statelessToken_ShouldNotLoadUser() throws Exception {
+        doFilter(jwtService.generateToken(user, 0));
+        doFilter(jwtService.generateToken(user, 0));
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals(5L, ((User) auth.getPrincipal()).getId());
+        assertEquals("ROLE_USER", auth.getAuthorities().iterator().next().getAuthority());
+        // версия токенов берется из памяти узла, а не из БД
+        verifyNoInteractions(userDetailsService, userRepository);
+    }
+
+    @Test
+    @DisplayName("Токен старого формата проверяется по БД")
+    void legacyToken_ShouldFallBackToUserDetailsService() throws Exception {
+        org.springframework.security.core.userdetails.User legacy =
+                new org.springframework.security.core.userdetails.User("ivan", "hash", user.getAuthorities());
+        when(userDetailsService.loadUserByUsername("ivan")).thenReturn(user);
+
+        doFilter(JwtTestTokens.legacyToken(SECRET, legacy));
+
+        assertEquals(user, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(userDetailsService).loadUserByUsername("ivan");
+    }
+
+    @Test
+    @DisplayName("Токен с неизвестной ролью не дает 500: пользователь загружается из БД")
+    void unknownRoleToken_ShouldFallBackToUserDetailsService() throws Exception {
+        String token = Jwts.builder()
+                .claim("uid", 5)
+                .claim("role", "AUDITOR")
+                .setSubject("ivan")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+        when(userDetailsService.loadUserByUsername("ivan")).thenReturn(user);
+
+        doFilter(token);
+
+        assertEquals(user, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    @DisplayName("Отозванный или поврежденный токен не аутентифицирует запрос")
+    void revokedOrBrokenToken_ShouldStayAnonymous() throws Exception {
+        String token = jwtService.generateToken(user, 0);
+        revocationRegistry.apply(5L, 1);
+
+        doFilter(token);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        doFilter("not-a-jwt");
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private void doFilter(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        new JwtAuthenticationFilter(jwtService, userDetailsService, revocationRegistry)
+                .doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final JwtService jwtService = new JwtService(SECRET, 60_000, true, 1_000);
+
+    private final User user = User.builder().id(42L).username("ivan").password("hash").role(Role.ADMIN).build();
+
+    @Test
+    @DisplayName("Principal собирается из uid и role без обращения к БД")
+    void principalFrom_ShouldBuildUserFromClaims() {
+        Claims claims = jwtService.parseToken(jwtService.generateToken(user, 0));
+
+        User principal = jwtService.principalFrom(claims).orElseThrow();
+
+        assertEquals(42L, principal.getId());
+        assertEquals("ivan", principal.getUsername());
+        assertEquals(Role.ADMIN, principal.getRole());
+    }
+
+    @Test
+    @DisplayName("Токен без uid (старый формат) и выключенный stateless-режим идут через БД")
+    void principalFrom_WithoutUid_ShouldBeEmpty() {
+        org.springframework.security.core.userdetails.User legacy =
+                new org.springframework.security.core.userdetails.User("ivan", "hash", user.getAuthorities());
+
+        assertTrue(jwtService.principalFrom(jwtService.parseToken(JwtTestTokens.legacyToken(SECRET, legacy))).isEmpty());
+        assertFalse(new JwtService(SECRET, 60_000, false, 1_000)
+                .principalFrom(jwtService.parseToken(jwtService.generateToken(user, 0))).isPresent());
+    }
+
+    @Test
+    @DisplayName("Неизвестная роль в подписанном токене не роняет разбор: principal загружается из БД")
+    void principalFrom_UnknownRole_ShouldBeEmpty() {
+        String token = Jwts.builder()
+                .claim("uid", 42)
+                .claim("role", "AUDITOR")
+                .setSubject("ivan")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertTrue(jwtService.principalFrom(jwtService.parseToken(token)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Повторный разбор того же токена берется из кэша, подделка не проходит")
+    void parseToken_ShouldCacheVerifiedTokens() {
+        String token = jwtService.generateToken(user, 0);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertSame(jwtService.parseToken(token), jwtService.parseToken(token));
+        assertThrows(JwtException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    @Test
+    @DisplayName("Истекший токен отклоняется при разборе")
+    void parseToken_Expired_ShouldThrow() {
+        String token = new JwtService(SECRET, -1_000, true, 1_000).generateToken(user, 0);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    @DisplayName("Версия токенов пользователя попадает в токен; у токенов без нее — 0")
+    void tokenVersion_ShouldComeFromClaim() {
+        assertEquals(3, jwtService.tokenVersion(jwtService.parseToken(jwtService.generateToken(user, 3))));
+        assertEquals(0, jwtService.tokenVersion(Jwts.claims().setSubject("ivan")));
+    }
+}
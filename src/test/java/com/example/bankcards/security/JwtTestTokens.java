@@ -0,0 +1,31 @@
+package com.example.bankcards.security;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Токены в форматах, которые приложение больше не выпускает, но еще принимает до истечения срока.
+ */
+final class JwtTestTokens {
+
+    private JwtTestTokens() {
+    }
+
+    /**
+     * Токен до появления uid и ver: только имя и список ролей.
+     */
+    static String legacyToken(String secret, UserDetails user) {
+        return Jwts.builder()
+                .claim("role", user.getAuthorities())
+                .setSubject(user.getUsername())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class LoginServiceTest {
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private TokenRevocationRegistry revocationRegistry;
+
+    private LoginService loginService;
+
+    @AfterEach
+    void tearDown() {
+        loginService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Токен выпускается по principal из аутентификации с текущей версией токенов из БД")
+    void login_ShouldIssueTokenForAuthenticatedPrincipal() throws Exception {
+        loginService = new LoginService(authenticationManager, jwtService, revocationRegistry, 1, 1);
+        User user = User.builder().id(1L).username("ivan").password("hash").role(Role.USER).build();
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        when(revocationRegistry.currentVersion(1L)).thenReturn(2);
+        when(jwtService.generateToken(user, 2)).thenReturn("jwt");
+
+        assertEquals("jwt", loginService.login("ivan", "secret").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Переполненный пул входа сразу отклоняет новые попытки")
+    void login_WhenPoolSaturated_ShouldReject() throws Exception {
+        loginService = new LoginService(authenticationManager, jwtService, revocationRegistry, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new org.springframework.security.authentication.BadCredentialsException("bad");
+        });
+
+        loginService.login("a", "p"); // занимает единственный поток
+        started.await(5, TimeUnit.SECONDS);
+        loginService.login("b", "p"); // ждет в очереди
+
+        assertThrows(RejectedExecutionException.class, () -> loginService.login("c", "p"));
+        release.countDown();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordRehashServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @InjectMocks
+    private PasswordRehashService passwordRehashService;
+
+    @Test
+    @DisplayName("При повышенной стоимости BCrypt хэш пересчитывается при входе")
+    void login_WithWeakerHash_ShouldRehash() {
+        User user = user(new BCryptPasswordEncoder(4).encode("secret"));
+        when(userDetailsService.loadUserByUsername("ivan")).thenReturn(user);
+
+        Authentication result = provider(new BCryptPasswordEncoder(5))
+                .authenticate(new UsernamePasswordAuthenticationToken("ivan", "secret"));
+
+        assertTrue(result.isAuthenticated());
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePassword(eq("ivan"), hash.capture());
+        assertTrue(hash.getValue().startsWith("$2a$05$"));
+        verify(eventPublisher).publishEvent(new UserChangedEvent("ivan"));
+    }
+
+    @Test
+    @DisplayName("Хэш с текущей стоимостью не пересчитывается")
+    void login_WithCurrentHash_ShouldNotRehash() {
+        when(userDetailsService.loadUserByUsername("ivan")).thenReturn(user(new BCryptPasswordEncoder(4).encode("secret")));
+
+        provider(new BCryptPasswordEncoder(4)).authenticate(new UsernamePasswordAuthenticationToken("ivan", "secret"));
+
+        verify(userRepository, never()).updatePassword(anyString(), anyString());
+    }
+
+    private DaoAuthenticationProvider provider(BCryptPasswordEncoder encoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService(passwordRehashService);
+        return provider;
+    }
+
+    private static User user(String hash) {
+        return User.builder().id(1L).username("ivan").password(hash).role(Role.USER).build();
+    }
+}
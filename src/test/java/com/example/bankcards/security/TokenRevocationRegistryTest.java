@@ -0,0 +1,74 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.bankcards.repository.UserRepository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationRegistryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("Отзыв действует на своем узле сразу, проверка токена не обращается к БД")
+    void revokeAll_ShouldApplyLocally() {
+        when(userRepository.incrementTokenVersion(42L)).thenReturn(1);
+        when(userRepository.findTokenVersionById(42L)).thenReturn(Optional.of(1));
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(userRepository);
+        assertFalse(registry.isRevoked(42L, 0));
+
+        assertTrue(registry.revokeAll(42L));
+
+        assertTrue(registry.isRevoked(42L, 0));
+        assertFalse(registry.isRevoked(42L, 1));
+    }
+
+    @Test
+    @DisplayName("Версия только растет: запоздавшее изменение не возвращает отозванные токены")
+    void apply_ShouldKeepHighestVersion() {
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(userRepository);
+
+        registry.apply(42L, 3);
+        registry.apply(42L, 2);
+
+        assertTrue(registry.isRevoked(42L, 2));
+        assertFalse(registry.isRevoked(42L, 3));
+        assertFalse(registry.isRevoked(7L, 0));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Токен, выпущенный после отзыва в ту же секунду, действителен")
+    void tokenIssuedRightAfterRevoke_ShouldStayValid() {
+        when(userRepository.incrementTokenVersion(42L)).thenReturn(1);
+        when(userRepository.findTokenVersionById(42L)).thenReturn(Optional.of(1));
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(userRepository);
+
+        registry.revokeAll(42L);
+        int issued = registry.currentVersion(42L);
+
+        assertFalse(registry.isRevoked(42L, issued));
+        assertTrue(registry.isRevoked(42L, issued - 1));
+    }
+
+    @Test
+    @DisplayName("Отзыв для несуществующего пользователя не выполняется")
+    void missingUser_ShouldNotBeRevoked() {
+        when(userRepository.incrementTokenVersion(7L)).thenReturn(0);
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(userRepository);
+
+        assertFalse(registry.revokeAll(7L));
+    }
+}
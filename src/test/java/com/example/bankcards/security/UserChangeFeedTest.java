@@ -0,0 +1,108 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Доставка изменений пользователей между узлами через users.changed_at на PostgreSQL.
+ * Второй узел — отдельные экземпляры реестра, кэша пользователей и ленты поверх той же базы.
+ */
+class UserChangeFeedTest extends AbstractPostgresTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRevocationRegistry revocationRegistry;
+
+    @Autowired
+    private PasswordRehashService passwordService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+    }
+
+    @Test
+    @DisplayName("Отзыв на одном узле доходит до другого опросом, новый узел загружает его при старте")
+    void revokeAll_ShouldReachOtherNodes() {
+        Long userId = user("feed_revoked").getId();
+        TokenRevocationRegistry otherRegistry = new TokenRevocationRegistry(userRepository);
+        UserChangeFeed otherNode = node(otherRegistry);
+
+        revocationRegistry.revokeAll(userId);
+
+        assertTrue(revocationRegistry.isRevoked(userId, 0));
+        assertFalse(otherRegistry.isRevoked(userId, 0));
+        otherNode.poll();
+        assertTrue(otherRegistry.isRevoked(userId, 0));
+
+        TokenRevocationRegistry startedLater = new TokenRevocationRegistry(userRepository);
+        node(startedLater);
+        assertTrue(startedLater.isRevoked(userId, 0));
+    }
+
+    @Test
+    @DisplayName("Изменение, закоммиченное позже более свежего, не теряется в пределах overlap")
+    void poll_ShouldPickUpLateCommitsWithinOverlap() {
+        Long first = user("feed_first").getId();
+        Long late = user("feed_late").getId();
+        TokenRevocationRegistry otherRegistry = new TokenRevocationRegistry(userRepository);
+        UserChangeFeed otherNode = node(otherRegistry);
+        revocationRegistry.revokeAll(first);
+        otherNode.poll();
+
+        // транзакция началась раньше уже увиденного изменения, а закоммитилась после опроса
+        jdbcTemplate.update("UPDATE users SET token_version = 1, " +
+                "changed_at = (SELECT max(changed_at) FROM users) - interval '10 seconds' WHERE id = ?", late);
+        otherNode.poll();
+
+        assertTrue(otherRegistry.isRevoked(late, 0));
+    }
+
+    @Test
+    @DisplayName("Смена пароля на одном узле сбрасывает кэш пользователя на другом")
+    void passwordChange_ShouldEvictUserCacheOnOtherNodes() {
+        User user = user("feed_password");
+        CachedUserDetailsService otherCache = new CachedUserDetailsService(userRepository, 100, Duration.ofMinutes(10));
+        UserChangeFeed otherNode = node(new TokenRevocationRegistry(userRepository), otherCache);
+        assertEquals("x", otherCache.loadUserByUsername("feed_password").getPassword());
+
+        passwordService.updatePassword(user, "new-hash");
+
+        assertEquals("x", otherCache.loadUserByUsername("feed_password").getPassword());
+        otherNode.poll();
+        assertEquals("new-hash", otherCache.loadUserByUsername("feed_password").getPassword());
+    }
+
+    private UserChangeFeed node(TokenRevocationRegistry registry) {
+        return node(registry, new CachedUserDetailsService(userRepository, 100, Duration.ofMinutes(10)));
+    }
+
+    private UserChangeFeed node(TokenRevocationRegistry registry, CachedUserDetailsService cache) {
+        UserChangeFeed feed = new UserChangeFeed(userRepository, registry, cache, Duration.ofMinutes(1));
+        feed.init();
+        return feed;
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder().username(username).password("x").role(Role.USER).build());
+    }
+}
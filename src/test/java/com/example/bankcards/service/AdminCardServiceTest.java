@@ -1,11 +1,14 @@
 package com.example.bankcards.service;
 
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -51,6 +55,34 @@ class AdminCardServiceTest {
         verify(cardRepository).findAll(pageable);
     }
 
+    @Test
+    @DisplayName("Админ: Keyset-страница отдает size записей и курсор на последнюю из них")
+    void getAllCardsByCursor_ShouldReturnNextCursor() {
+        List<Card> rows = List.of(
+                Card.builder().id(6L).build(),
+                Card.builder().id(7L).build(),
+                Card.builder().id(8L).build());
+        when(cardRepository.findAllByIdGreaterThanOrderByIdAsc(5L, Limit.of(3))).thenReturn(rows);
+
+        CursorPage<Card> result = adminCardService.getAllCardsAfter(PageCursor.encode(5L), 2);
+
+        assertEquals(2, result.getContent().size());
+        assertEquals(7L, PageCursor.decode(result.getNextCursor()));
+        verify(cardRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("Админ: Последняя keyset-страница без курсора продолжения")
+    void getAllCardsByCursor_LastPage_ShouldHaveNoNextCursor() {
+        when(cardRepository.findAllByIdGreaterThanOrderByIdAsc(PageCursor.START, Limit.of(CursorPage.DEFAULT_SIZE + 1)))
+                .thenReturn(List.of(Card.builder().id(1L).build()));
+
+        CursorPage<Card> result = adminCardService.getAllCardsAfter(null, CursorPage.DEFAULT_SIZE);
+
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNextCursor());
+    }
+
     @Test
     @DisplayName("Админ: Успешное создание карты для существующего пользователя")
     void createCard_Success() {
@@ -72,13 +104,34 @@ class AdminCardServiceTest {
         verify(cardRepository).save(any(Card.class));
     }
 
+    @Test
+    @DisplayName("Админ: Номер с пробелами и дефисами сохраняется цифрами, последние цифры берутся из них")
+    void createCard_ShouldNormalizeNumber() {
+        User user = User.builder().id(1L).username("testuser").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Card createdCard = adminCardService.createCard(1L, "4111 1111 1111 111-1", BigDecimal.TEN);
+
+        assertEquals("4111111111111111", createdCard.getCardNumber());
+    }
+
+    @Test
+    @DisplayName("Админ: Номер не из цифр отклоняется как некорректный запрос")
+    void createCard_InvalidNumber_ShouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () ->
+                adminCardService.createCard(1L, "4111-1111-1111-111x", BigDecimal.TEN));
+        assertThrows(BadRequestException.class, () -> adminCardService.createCard(1L, " - ", BigDecimal.TEN));
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
     @Test
     @DisplayName("Админ: Ошибка при создании карты для несуществующего пользователя")
     void createCard_UserNotFound() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () ->
-                adminCardService.createCard(999L, "1234", BigDecimal.ZERO)
+                adminCardService.createCard(999L, "1234123412341234", BigDecimal.ZERO)
         );
     }
 
@@ -1,6 +1,7 @@
 package com.example.bankcards.service;
 
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -9,10 +10,14 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.UserResponseDTO;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenRevocationRegistry;
+import com.example.bankcards.security.UserChangedEvent;
+import com.example.bankcards.util.PageCursor;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,10 +25,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
 
+import jakarta.persistence.EntityNotFoundException;
+
 @ExtendWith(MockitoExtension.class)
 class AdminUserServiceTest {
 
@@ -33,6 +44,12 @@ class AdminUserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private TokenRevocationRegistry revocationRegistry;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AdminUserService adminUserService;
 
@@ -59,6 +76,7 @@ class AdminUserServiceTest {
 
         verify(passwordEncoder).encode(rawPassword);
         verify(userRepository).save(any(User.class));
+        verify(eventPublisher).publishEvent(new UserChangedEvent("new_user"));
     }
 
     @Test
@@ -75,18 +93,46 @@ class AdminUserServiceTest {
     }
 
     @Test
-    @DisplayName("Получение списка всех пользователей")
-    void getAllUsers_ShouldReturnList() {
-        User user1 = User.builder().id(1L).username("admin").role(Role.ADMIN).build();
-        User user2 = User.builder().id(2L).username("user").role(Role.USER).build();
+    @DisplayName("Отзыв токенов существующего пользователя")
+    void revokeTokens_Success() {
+        when(revocationRegistry.revokeAll(1L)).thenReturn(true);
+
+        assertDoesNotThrow(() -> adminUserService.revokeTokens(1L));
+    }
+
+    @Test
+    @DisplayName("Отзыв токенов несуществующего пользователя")
+    void revokeTokens_NotFound() {
+        when(revocationRegistry.revokeAll(1L)).thenReturn(false);
 
-        when(userRepository.findAll()).thenReturn(List.of(user1, user2));
+        assertThrows(EntityNotFoundException.class, () -> adminUserService.revokeTokens(1L));
+    }
+
+    @Test
+    @DisplayName("Страница пользователей строится проекцией репозитория без сущностей")
+    void getUsers_ShouldDelegateToProjection() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        Page<UserResponseDTO> page = new PageImpl<>(List.of(new UserResponseDTO(1L, "admin", Role.ADMIN)), pageable, 1);
+        when(userRepository.findSummaries(Role.ADMIN, "ad", pageable)).thenReturn(page);
+
+        Page<UserResponseDTO> result = adminUserService.getUsers(Role.ADMIN, "ad", pageable);
+
+        assertEquals("admin", result.getContent().get(0).getUsername());
+        assertEquals("ADMIN", result.getContent().get(0).getRole());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Keyset-страница пользователей: лишняя строка дает курсор следующей страницы")
+    void getUsersAfter_ShouldReturnNextCursor() {
+        when(userRepository.findSummariesAfter(null, null, 5L, 3)).thenReturn(List.of(
+                new UserResponseDTO(6L, "u6", Role.USER),
+                new UserResponseDTO(7L, "u7", Role.USER),
+                new UserResponseDTO(8L, "u8", Role.USER)));
 
-        List<UserResponseDTO> result = adminUserService.getAllUsers();
+        CursorPage<UserResponseDTO> result = adminUserService.getUsersAfter(null, null, PageCursor.encode(5L), 2);
 
-        assertEquals(2, result.size());
-        assertEquals("admin", result.get(0).getUsername());
-        assertEquals("ADMIN", result.get(0).getRole());
-        verify(userRepository).findAll();
+        assertEquals(2, result.getContent().size());
+        assertEquals(PageCursor.encode(7L), result.getNextCursor());
     }
 }
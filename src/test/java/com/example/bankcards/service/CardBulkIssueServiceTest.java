@@ -0,0 +1,192 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBulkFormat;
+import com.example.bankcards.entity.CardBulkJob;
+import com.example.bankcards.entity.CardBulkJobStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardBulkJobRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardNumberBlindIndex;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.cards.bulk.chunk-size=2")
+@ActiveProfiles("test")
+class CardBulkIssueServiceTest {
+
+    @Autowired
+    private CardBulkIssueService bulkIssueService;
+
+    @Autowired
+    private CardBulkJobRepository jobRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardNumberBlindIndex blindIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder().username("bulk_owner").password("x").role(Role.USER).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("NDJSON: корректные строки выпускаются порциями, ошибочные попадают в отчет с номером строки")
+    void submit_Ndjson_ShouldIssueCardsAndReportLineErrors() throws Exception {
+        String body = String.join("\n",
+                line(owner.getId(), "4000 0000 0000 0001", "100"),
+                "{not json",
+                line(999_999L, "4000000000000002", "10"),
+                "",
+                line(owner.getId(), "4000000000000003", "-5"),
+                line(owner.getId(), "4000-0000-0000-0004", "50"));
+
+        CardBulkJob job = awaitFinished(submit(body, CardBulkFormat.NDJSON));
+
+        assertEquals(CardBulkJobStatus.COMPLETED, job.getStatus());
+        assertEquals(5, job.getProcessedLines());
+        assertEquals(2, job.getIssuedCards());
+        assertEquals(3, job.getFailedLines());
+
+        List<Card> cards = cardRepository.findAll();
+        assertEquals(2, cards.size());
+        assertTrue(cards.stream().allMatch(c -> c.getOwnerName().equals("bulk_owner")));
+        assertTrue(cards.stream().anyMatch(c -> c.getCardNumberHash().equals(blindIndex.hash("4000000000000001"))
+                && c.getCardLast4().equals("0001")));
+
+        String errors = errors(job.getId());
+        assertTrue(errors.startsWith("line,message\n"));
+        assertTrue(errors.contains("2,\"Некорректный JSON"));
+        assertTrue(errors.contains("3,\"Пользователь не найден\""));
+        assertTrue(errors.contains("5,\"initialBalance: "));
+    }
+
+    @Test
+    @DisplayName("CSV: строка заголовка пропускается, строка с неверным числом полей попадает в отчет")
+    void submit_Csv_ShouldSkipHeader() throws Exception {
+        String body = "userId,cardNumber,initialBalance\n"
+                + owner.getId() + ",4000000000000011,10\n"
+                + owner.getId() + ",4000000000000012\n"
+                + owner.getId() + ",4000000000000013,20.50\n";
+
+        CardBulkJob job = awaitFinished(submit(body, CardBulkFormat.CSV));
+
+        assertEquals(3, job.getProcessedLines());
+        assertEquals(2, job.getIssuedCards());
+        assertEquals(1, job.getFailedLines());
+        assertTrue(errors(job.getId()).contains("3,\"Ожидалось 3 поля"));
+        assertEquals(2, cardRepository.count());
+    }
+
+    @Test
+    @DisplayName("Задание упавшего узла без пульса помечается FAILED, задание живого узла — нет")
+    void heartbeat_ShouldFailJobsOfDeadNodes() {
+        CardBulkJob orphaned = runningJob(Duration.ofMinutes(10));
+        CardBulkJob alive = runningJob(Duration.ofSeconds(10));
+
+        bulkIssueService.heartbeat();
+
+        CardBulkJob failed = bulkIssueService.getJob(orphaned.getId());
+        assertEquals(CardBulkJobStatus.FAILED, failed.getStatus());
+        assertNotNull(failed.getFinishedAt());
+        assertEquals(CardBulkJobStatus.RUNNING, bulkIssueService.getJob(alive.getId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Узел, чье задание уже помечено FAILED, откатывает порцию и не выпускает карты")
+    void process_ShouldStop_WhenJobAlreadyFailed() throws Exception {
+        CardBulkJob job = runningJob(Duration.ofMinutes(10));
+        bulkIssueService.heartbeat();
+        Path file = Files.createTempFile("cards-bulk-", ".ndjson");
+        Files.writeString(file, String.join("\n",
+                line(owner.getId(), "4000000000000021", "10"),
+                line(owner.getId(), "4000000000000022", "10"),
+                line(owner.getId(), "4000000000000023", "10")));
+
+        bulkIssueService.process(job.getId(), CardBulkFormat.NDJSON, file);
+
+        CardBulkJob stopped = bulkIssueService.getJob(job.getId());
+        assertEquals(CardBulkJobStatus.FAILED, stopped.getStatus());
+        assertEquals(0, stopped.getProcessedLines());
+        assertEquals(0, cardRepository.count());
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Задание RUNNING, пульс которого (по часам базы) не обновлялся silentFor.
+     */
+    private CardBulkJob runningJob(Duration silentFor) {
+        CardBulkJob job = jobRepository.save(CardBulkJob.builder()
+                .status(CardBulkJobStatus.RUNNING)
+                .format(CardBulkFormat.NDJSON)
+                .build());
+        // Пульс задает только база (local datetime), сущность его не обновляет
+        jdbcTemplate.update("UPDATE card_bulk_jobs SET updated_at = ? WHERE id = ?",
+                job.getUpdatedAt().minus(silentFor), job.getId());
+        return job;
+    }
+
+    private UUID submit(String body, CardBulkFormat format) throws Exception {
+        return bulkIssueService.submit(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format).getId();
+    }
+
+    private CardBulkJob awaitFinished(UUID jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            CardBulkJob job = bulkIssueService.getJob(jobId);
+            if (job.getStatus() != CardBulkJobStatus.RUNNING) return job;
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Задание не завершилось");
+    }
+
+    private String errors(UUID jobId) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkIssueService.writeErrors(jobId, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String line(Long userId, String cardNumber, String balance) {
+        return "{\"userId\":" + userId + ",\"cardNumber\":\"" + cardNumber + "\",\"initialBalance\":" + balance + "}";
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.entity.CardBulkFormat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Выгрузка на PostgreSQL: курсор с fetchSize меньше числа карт проходит таблицу порциями.
+ */
+@TestPropertySource(properties = "spring.cards.export.fetch-size=100")
+class CardExportServiceTest extends AbstractPostgresTest {
+
+    private static final int CARDS = 2500;
+
+    @Autowired
+    private CardExportService cardExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (username, password, role) VALUES ('export_owner', 'x', 'USER')");
+        jdbcTemplate.update("INSERT INTO cards (card_number, card_last4, card_number_hash, owner_name, balance, status, expiry_date, user_id) " +
+                "SELECT 'enc' || g, lpad(g::text, 4, '0'), md5(g::text), 'Owner \"' || g || '\"', g, 'ACTIVE', DATE '2030-01-31', u.id " +
+                "FROM generate_series(1, " + CARDS + ") g CROSS JOIN users u WHERE u.username = 'export_owner'");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cards");
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+    }
+
+    @Test
+    @DisplayName("NDJSON: все карты по одной на строку, номер маскирован")
+    void export_Ndjson_ShouldWriteAllCards() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(CARDS, cardExportService.export(CardBulkFormat.NDJSON, out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CARDS, lines.length);
+        assertTrue(lines[0].contains("\"maskedNumber\":\"**** **** **** 0001\""));
+        assertTrue(lines[0].contains("\"expiryDate\":\"2030-01-31\""));
+        assertFalse(lines[0].contains("enc1"));
+    }
+
+    @Test
+    @DisplayName("CSV: заголовок и экранирование кавычек в имени владельца")
+    void export_Csv_ShouldEscapeOwnerName() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cardExportService.export(CardBulkFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CARDS + 1, lines.length);
+        assertEquals("id,maskedNumber,ownerName,balance,status,expiryDate", lines[0]);
+        assertTrue(lines[2].endsWith(",**** **** **** 0002,\"Owner \"\"2\"\"\",2.00,ACTIVE,2030-01-31"), lines[2]);
+    }
+}
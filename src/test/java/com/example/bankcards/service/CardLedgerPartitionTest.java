@@ -0,0 +1,103 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.example.bankcards.AbstractPostgresTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Журнал card_ledger на PostgreSQL: запись в одной транзакции с переводом, месячные секции
+ * и отсоединение старых секций.
+ */
+class CardLedgerPartitionTest extends AbstractPostgresTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardLedgerPartitionService partitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM card_ledger");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_ledger_2020_01");
+        jdbcTemplate.update("DELETE FROM cards");
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+    }
+
+    @Test
+    @DisplayName("Перевод пишет пару записей журнала в секцию текущего месяца")
+    void transfer_ShouldAppendLedgerToCurrentPartition() {
+        Long userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password, role) VALUES ('ledger', 'x', 'USER') RETURNING id", Long.class);
+        Long from = insertCard(userId, "100.00");
+        Long to = insertCard(userId, "0.00");
+
+        cardService.transferBetweenOwnCards(userId, from, to, new BigDecimal("30.00"));
+
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass || ':' || card_id || ':' || amount FROM card_ledger ORDER BY amount",
+                String.class);
+        String partition = "card_ledger_" + YearMonth.now(ZoneOffset.UTC).format(SUFFIX);
+        assertEquals(List.of(partition + ":" + from + ":-30.00", partition + ":" + to + ":30.00"), rows);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT transfer_id) FROM card_ledger", Integer.class));
+    }
+
+    @Test
+    @DisplayName("На секции только индекс (card_id, created_at), секции созданы на месяцы вперед")
+    void partitions_ShouldExistAheadWithSingleIndex() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        partitionService.createPartitions(current, 4);
+
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class,
+                    "card_ledger_" + current.plusMonths(i).format(SUFFIX)));
+        }
+        List<String> indexes = jdbcTemplate.queryForList("SELECT indexdef FROM pg_indexes WHERE tablename = ?",
+                String.class, "card_ledger_" + current.format(SUFFIX));
+        assertEquals(1, indexes.size(), indexes.toString());
+        assertEquals(0, partitionService.createPartitions(current, 4));
+    }
+
+    @Test
+    @DisplayName("Старая секция отсоединяется целиком и остается отдельной таблицей")
+    void detachPartitionsBefore_ShouldDetachOldMonths() {
+        partitionService.createPartitions(YearMonth.of(2020, 1), 1);
+        jdbcTemplate.update("INSERT INTO card_ledger (transfer_id, card_id, amount, created_at) " +
+                "VALUES (gen_random_uuid(), 1, 5.00, '2020-01-15 12:00:00+00')");
+
+        List<String> detached = partitionService.detachPartitionsBefore(YearMonth.of(2020, 2));
+
+        assertEquals(List.of("card_ledger_2020_01"), detached);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM card_ledger WHERE created_at < '2020-02-01'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_ledger_2020_01", Integer.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass('card_ledger_2019_12')::text", String.class));
+    }
+
+    private Long insertCard(Long userId, String balance) {
+        return jdbcTemplate.queryForObject("INSERT INTO cards (card_number, card_last4, card_number_hash, owner_name, " +
+                        "balance, status, expiry_date, user_id) VALUES ('enc', '0000', 'hash', 'LEDGER', ?, 'ACTIVE', " +
+                        "current_date + 365, ?) RETURNING id",
+                Long.class, new BigDecimal(balance), userId);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardNumberBlindIndex;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Пересчет слепого индекса на PostgreSQL: порции по id, продолжение с after_id
+ * и запуск только при смене отпечатка ключа.
+ */
+@TestPropertySource(properties = {
+        "spring.cards.blind-index.rehash.chunk-size=2",
+        "spring.cards.blind-index.rehash.check-interval=PT1H"})
+class CardNumberRehashServiceTest extends AbstractPostgresTest {
+
+    @Autowired
+    private CardNumberRehashService rehashService;
+
+    @Autowired
+    private CardNumberBlindIndex blindIndex;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Card> cards;
+
+    @BeforeEach
+    void setUp() {
+        markCurrentKey();
+        User owner = userRepository.save(User.builder().username("rehash_owner").password("x").role(Role.USER).build());
+        cards = cardRepository.saveAll(IntStream.range(0, 3).mapToObj(i -> Card.builder()
+                .cardNumber("4000 0000 0000 000" + i)
+                .ownerName("REHASH OWNER")
+                .balance(BigDecimal.ZERO)
+                .status(CardStatus.ACTIVE)
+                .expiryDate(LocalDate.now().plusYears(3))
+                .owner(owner)
+                .build()).toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cards");
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+        markCurrentKey();
+    }
+
+    @Test
+    @DisplayName("При вставке индекс считается ключом из конфигурации; при совпадении отпечатка пересчета нет")
+    void insert_ShouldHashWithConfiguredKey() {
+        for (int i = 0; i < cards.size(); i++) {
+            assertEquals(blindIndex.hash("400000000000000" + i), storedHash(cards.get(i).getId()));
+        }
+        jdbcTemplate.update("UPDATE cards SET card_number_hash = 'stale'");
+
+        rehashService.rehashIfKeyChanged();
+
+        assertEquals("stale", storedHash(cards.get(0).getId()));
+    }
+
+    @Test
+    @DisplayName("После смены ключа перезаписываются только отличающиеся значения, отпечаток запоминается")
+    void rehash_KeyChanged_ShouldRewriteStaleHashesInChunks() {
+        jdbcTemplate.update("UPDATE card_number_hash_state SET key_fingerprint = 'old'");
+        jdbcTemplate.update("UPDATE cards SET card_number_hash = 'stale' WHERE id <> ?", cards.get(1).getId());
+
+        long rewritten = rehashService.rehash(() -> true);
+
+        assertEquals(2, rewritten);
+        for (int i = 0; i < cards.size(); i++) {
+            assertEquals(blindIndex.hash("400000000000000" + i), storedHash(cards.get(i).getId()));
+        }
+        Map<String, Object> state = state();
+        assertEquals(blindIndex.fingerprint(), state.get("key_fingerprint"));
+        assertNull(state.get("target_fingerprint"));
+        assertNull(state.get("after_id"));
+        assertEquals(0, rehashService.rehash(() -> true));
+    }
+
+    @Test
+    @DisplayName("Прерванный пересчет продолжается с after_id, а не с начала")
+    void rehash_Interrupted_ShouldResumeAfterLastChunk() {
+        jdbcTemplate.update("UPDATE card_number_hash_state SET key_fingerprint = 'old'");
+        jdbcTemplate.update("UPDATE cards SET card_number_hash = 'stale'");
+
+        assertEquals(2, rehashService.rehash(() -> false));
+        Map<String, Object> state = state();
+        assertEquals("old", state.get("key_fingerprint"));
+        assertEquals(blindIndex.fingerprint(), state.get("target_fingerprint"));
+        assertEquals(cards.get(1).getId(), ((Number) state.get("after_id")).longValue());
+
+        jdbcTemplate.update("UPDATE cards SET card_number_hash = 'stale' WHERE id = ?", cards.get(0).getId());
+
+        assertEquals(1, rehashService.rehash(() -> true));
+        assertEquals("stale", storedHash(cards.get(0).getId()));
+        assertEquals(blindIndex.hash("4000000000000002"), storedHash(cards.get(2).getId()));
+        assertEquals(blindIndex.fingerprint(), state().get("key_fingerprint"));
+    }
+
+    private void markCurrentKey() {
+        jdbcTemplate.update("UPDATE card_number_hash_state SET key_fingerprint = ?, target_fingerprint = NULL, "
+                + "after_id = NULL", blindIndex.fingerprint());
+    }
+
+    private String storedHash(Long cardId) {
+        return jdbcTemplate.queryForObject("SELECT card_number_hash FROM cards WHERE id = ?", String.class, cardId);
+    }
+
+    private Map<String, Object> state() {
+        return jdbcTemplate.queryForMap(
+                "SELECT key_fingerprint, target_fingerprint, after_id FROM card_number_hash_state WHERE id = 1");
+    }
+}
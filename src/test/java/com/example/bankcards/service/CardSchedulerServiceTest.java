@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.scheduler.card-expiry.chunk-size=3")
+@ActiveProfiles("test")
+class CardSchedulerServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    @Autowired
+    private CardSchedulerService cardSchedulerService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private SchedulerLockService schedulerLockService;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder().username("expiry_user").password("x").role(Role.USER).build());
+        for (int i = 0; i < 7; i++) {
+            save(owner, i, TODAY.minusDays(i + 1), CardStatus.ACTIVE);
+        }
+        save(owner, 7, TODAY.minusDays(1), CardStatus.BLOCKED);
+        save(owner, 8, TODAY, CardStatus.ACTIVE);
+        save(owner, 9, TODAY.plusYears(1), CardStatus.ACTIVE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Просроченные активные карты переводятся в EXPIRED порциями, остальные не меняются")
+    void expireCardsBefore_ShouldExpireInChunks() {
+        double chunksBefore = meterRegistry.counter("cards.expiry.chunks").count();
+
+        assertEquals(7, cardSchedulerService.expireCardsBefore(TODAY));
+
+        Map<CardStatus, Long> byStatus = cardRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Card::getStatus, Collectors.counting()));
+        assertEquals(7, byStatus.get(CardStatus.EXPIRED));
+        assertEquals(1, byStatus.get(CardStatus.BLOCKED));
+        assertEquals(2, byStatus.get(CardStatus.ACTIVE));
+        assertEquals(3, meterRegistry.counter("cards.expiry.chunks").count() - chunksBefore);
+    }
+
+    @Test
+    @DisplayName("Повторный прогон после сбоя не трогает уже обработанные карты")
+    void expireCardsBefore_ShouldBeIdempotent() {
+        cardSchedulerService.expireCardsBefore(TODAY);
+
+        assertEquals(0, cardSchedulerService.expireCardsBefore(TODAY));
+    }
+
+    @Test
+    @DisplayName("Без аренды узел пропускает прогон и не трогает карты")
+    void checkExpiredCards_ShouldSkip_WhenLockHeldByAnotherNode() {
+        when(schedulerLockService.tryAcquire(eq(CardSchedulerService.EXPIRY_LOCK), any())).thenReturn(false);
+
+        cardSchedulerService.checkExpiredCards();
+
+        assertEquals(0, cardRepository.findAll().stream().filter(c -> c.getStatus() == CardStatus.EXPIRED).count());
+        verify(schedulerLockService, never()).release(any(), any());
+    }
+
+    @Test
+    @DisplayName("Потеря аренды прерывает прогон после текущей порции, блокировка освобождается")
+    void checkExpiredCards_ShouldStop_WhenLeaseLost() {
+        when(schedulerLockService.tryAcquire(eq(CardSchedulerService.EXPIRY_LOCK), any())).thenReturn(true);
+        when(schedulerLockService.renew(eq(CardSchedulerService.EXPIRY_LOCK), any())).thenReturn(false);
+
+        cardSchedulerService.checkExpiredCards();
+
+        assertEquals(3, cardRepository.findAll().stream().filter(c -> c.getStatus() == CardStatus.EXPIRED).count());
+        verify(schedulerLockService).release(eq(CardSchedulerService.EXPIRY_LOCK), any());
+    }
+
+    private void save(User owner, int i, LocalDate expiry, CardStatus status) {
+        cardRepository.save(Card.builder()
+                .cardNumber("400000000000100" + i)
+                .ownerName(owner.getUsername())
+                .balance(BigDecimal.ZERO)
+                .status(status)
+                .expiryDate(expiry)
+                .owner(owner)
+                .build());
+    }
+}
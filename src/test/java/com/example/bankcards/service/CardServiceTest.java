@@ -1,22 +1,50 @@
 package com.example.bankcards.service;
 
 
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResultDTO;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardLedgerRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import com.example.bankcards.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,34 +53,52 @@ class CardServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private CardLedgerRepository cardLedgerRepository;
+
+    @Spy
+    private CardNumberBlindIndex blindIndex = new CardNumberBlindIndex(AbstractPostgresTest.BLIND_INDEX_KEY);
+
+    @Captor
+    private ArgumentCaptor<List<CardLedgerEntry>> ledgerCaptor;
+
     @InjectMocks
     private CardService cardService;
 
     @Test
     @DisplayName("Успешный перевод между своими картами")
     void transfer_Success() {
-        String username = "testuser";
+        Long userId = 1L;
         Card fromCard = Card.builder()
-                .id(1L).ownerName(username).balance(new BigDecimal("1000.00"))
+                .id(1L).ownerName("testuser").balance(new BigDecimal("1000.00"))
                 .status(CardStatus.ACTIVE).build();
         Card toCard = Card.builder()
-                .id(2L).ownerName(username).balance(new BigDecimal("500.00"))
+                .id(2L).ownerName("testuser").balance(new BigDecimal("500.00"))
                 .status(CardStatus.ACTIVE).build();
+        BigDecimal amount = new BigDecimal("300.00");
 
-        when(cardRepository.findByIdAndOwnerUsername(1L, username)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerUsername(2L, username)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), userId)).thenReturn(List.of(fromCard, toCard));
+        when(cardRepository.debit(1L, amount)).thenReturn(1);
 
-        cardService.transferBetweenOwnCards(username, 1L, 2L, new BigDecimal("300.00"));
+        cardService.transferBetweenOwnCards(userId, 1L, 2L, amount);
 
-        assertEquals(new BigDecimal("700.00"), fromCard.getBalance());
-        assertEquals(new BigDecimal("800.00"), toCard.getBalance());
-        verify(cardRepository, times(2)).save(any(Card.class));
+        verify(cardRepository).debit(1L, amount);
+        verify(cardRepository).credit(2L, amount);
+        verify(cardRepository, never()).save(any(Card.class));
+        verify(cardLedgerRepository).saveAll(ledgerCaptor.capture());
+        List<CardLedgerEntry> ledger = ledgerCaptor.getValue();
+        assertEquals(2, ledger.size());
+        assertEquals(new BigDecimal("-300.00"), ledger.get(0).getAmount());
+        assertEquals(1L, ledger.get(0).getCardId());
+        assertEquals(new BigDecimal("300.00"), ledger.get(1).getAmount());
+        assertEquals(2L, ledger.get(1).getCardId());
+        assertEquals(ledger.get(0).getTransferId(), ledger.get(1).getTransferId());
     }
 
     @Test
     @DisplayName("Ошибка перевода: Недостаточно средств")
     void transfer_InsufficientFunds() {
-        String username = "testuser";
+        Long userId = 1L;
 
         Card fromCard = Card.builder()
                 .id(1L)
@@ -66,33 +112,166 @@ class CardServiceTest {
                 .status(CardStatus.ACTIVE)
                 .build();
 
-        when(cardRepository.findByIdAndOwnerUsername(1L, username)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerUsername(2L, username)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), userId)).thenReturn(List.of(fromCard, toCard));
+        when(cardRepository.debit(1L, new BigDecimal("500.00"))).thenReturn(0);
 
         assertThrows(InsufficientFundsException.class, () ->
-                cardService.transferBetweenOwnCards(username, 1L, 2L, new BigDecimal("500.00"))
+                cardService.transferBetweenOwnCards(userId, 1L, 2L, new BigDecimal("500.00"))
         );
+        verify(cardRepository, never()).credit(anyLong(), any());
+        verify(cardLedgerRepository, never()).saveAll(any());
     }
 
     @Test
     @DisplayName("Ошибка перевода: Попытка списать с чужой карты")
     void transfer_NotOwner() {
-        String username = "hacker";
-        when(cardRepository.findByIdAndOwnerUsername(1L, username)).thenReturn(Optional.empty());
+        Long userId = 99L;
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), userId)).thenReturn(List.of());
 
         assertThrows(EntityNotFoundException.class, () ->
-                cardService.transferBetweenOwnCards(username, 1L, 2L, new BigDecimal("100.00"))
+                cardService.transferBetweenOwnCards(userId, 1L, 2L, new BigDecimal("100.00"))
         );
+        verify(cardRepository, never()).debit(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Ошибка перевода: Карта списания просрочена")
+    void transfer_ExpiredCard() {
+        Long userId = 1L;
+        Card fromCard = Card.builder().id(1L).balance(new BigDecimal("100.00")).status(CardStatus.EXPIRED).build();
+        Card toCard = Card.builder().id(2L).balance(BigDecimal.ZERO).status(CardStatus.ACTIVE).build();
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), userId)).thenReturn(List.of(fromCard, toCard));
+
+        assertThrows(IllegalStateException.class, () ->
+                cardService.transferBetweenOwnCards(userId, 1L, 2L, new BigDecimal("10.00"))
+        );
+        verify(cardRepository, never()).debit(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Пакетный перевод: изменения балансов сворачиваются по картам, ошибки возвращаются по каждому переводу")
+    void transferBatch_ShouldNetDeltasAndReportPerItem() {
+        Long userId = 1L;
+        Card first = Card.builder().id(1L).balance(new BigDecimal("100.00")).status(CardStatus.ACTIVE).build();
+        Card second = Card.builder().id(2L).balance(new BigDecimal("50.00")).status(CardStatus.ACTIVE).build();
+        when(cardRepository.findAllForTransfer(Set.of(1L, 2L, 3L), userId)).thenReturn(List.of(first, second));
+
+        List<TransferResultDTO> results = cardService.transferBatch(userId, List.of(
+                transfer(1L, 2L, "80.00"),
+                transfer(1L, 2L, "30.00"),  // остаток 20.00 — недостаточно средств
+                transfer(2L, 1L, "10.00"),
+                transfer(1L, 3L, "5.00")    // чужая карта
+        ));
+
+        assertEquals(List.of(true, false, true, false), results.stream().map(TransferResultDTO::isSuccess).toList());
+        assertEquals("Недостаточно средств на карте", results.get(1).getError());
+        assertEquals("Карта зачисления не найдена или не принадлежит вам", results.get(3).getError());
+        verify(cardRepository).applyBalanceDeltas(Map.of(
+                1L, new BigDecimal("-70.00"),
+                2L, new BigDecimal("70.00")
+        ));
+        // в журнал попадают только успешные переводы, по две записи на каждый
+        verify(cardLedgerRepository).saveAll(ledgerCaptor.capture());
+        assertEquals(List.of(new BigDecimal("-80.00"), new BigDecimal("80.00"),
+                        new BigDecimal("-10.00"), new BigDecimal("10.00")),
+                ledgerCaptor.getValue().stream().map(CardLedgerEntry::getAmount).toList());
+    }
+
+    @Test
+    @DisplayName("Поиск по 4 цифрам идет по card_last4")
+    void getMyCards_SearchByLast4() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(cardRepository.findMyCardsByLast4(1L, "1234", pageable)).thenReturn(Page.empty());
+
+        cardService.getMyCards(1L, "1234", null, pageable);
+
+        verify(cardRepository).findMyCardsByLast4(1L, "1234", pageable);
+        verify(cardRepository, never()).searchMyCards(anyLong(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Поиск по полному номеру идет по слепому индексу")
+    void getMyCards_SearchByFullNumber() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        String hash = blindIndex.hash("4000123412341234");
+        when(cardRepository.findMyCardsByNumberHash(1L, hash, pageable)).thenReturn(Page.empty());
+
+        cardService.getMyCards(1L, "4000 1234 1234 1234", null, pageable);
+
+        verify(cardRepository).findMyCardsByNumberHash(1L, hash, pageable);
+    }
+
+    @Test
+    @DisplayName("Текстовый поиск идет по имени владельца")
+    void getMyCards_SearchByOwnerName() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(cardRepository.searchMyCards(1L, "ivan", pageable)).thenReturn(Page.empty());
+
+        cardService.getMyCards(1L, "ivan", null, pageable);
+
+        verify(cardRepository).searchMyCards(1L, "ivan", pageable);
+    }
+
+    @Test
+    @DisplayName("Keyset-страница своих карт с фильтром по статусу")
+    void getMyCardsByCursor_WithStatus() {
+        when(cardRepository.findMyCardsByStatusAfter(1L, CardStatus.BLOCKED, 10L, Limit.of(2)))
+                .thenReturn(List.of(CardResponseDTO.builder().id(11L).build(), CardResponseDTO.builder().id(12L).build()));
+
+        CursorPage<CardResponseDTO> result = cardService.getMyCardsAfter(1L, CardStatus.BLOCKED, PageCursor.encode(10L), 1);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(11L, PageCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    @DisplayName("История движений: лишняя строка дает курсор по времени и id последней записи страницы")
+    void getCardTransactions_ShouldReturnNextCursor() {
+        OffsetDateTime at = OffsetDateTime.parse("2024-03-01T10:00:00Z");
+        Instant after = Instant.parse("2024-03-02T00:00:00Z");
+        when(cardRepository.existsByIdAndOwnerId(5L, 1L)).thenReturn(true);
+        when(cardLedgerRepository.findHistory(eq(5L), isNull(), isNull(), any(PageCursor.Position.class), eq(2)))
+                .thenReturn(List.of(
+                        CardTransactionDTO.builder().id(30L).createdAt(at).build(),
+                        CardTransactionDTO.builder().id(29L).createdAt(at).build()));
+
+        CursorPage<CardTransactionDTO> result = cardService.getCardTransactions(
+                1L, 5L, null, null, PageCursor.encode(after, 31L), 1);
+
+        assertEquals(1, result.getContent().size());
+        PageCursor.Position next = PageCursor.decodePosition(result.getNextCursor());
+        assertEquals(at.toInstant(), next.createdAt());
+        assertEquals(30L, next.id());
+    }
+
+    @Test
+    @DisplayName("История движений по чужой карте не читается")
+    void getCardTransactions_ForeignCard() {
+        when(cardRepository.existsByIdAndOwnerId(5L, 1L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () ->
+                cardService.getCardTransactions(1L, 5L, null, null, null, 20));
+        verifyNoInteractions(cardLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("История движений: начало периода не раньше конца")
+    void getCardTransactions_InvalidPeriod() {
+        OffsetDateTime from = OffsetDateTime.of(2024, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        assertThrows(BadRequestException.class, () ->
+                cardService.getCardTransactions(1L, 5L, from, from, null, 20));
+        verifyNoInteractions(cardRepository, cardLedgerRepository);
     }
 
     @Test
     @DisplayName("Блокировка карты пользователем")
     void lockCard_Success() {
-        String username = "testuser";
+        Long userId = 1L;
         Card card = Card.builder().id(1L).status(CardStatus.ACTIVE).build();
-        when(cardRepository.findByIdAndOwnerUsername(1L, username)).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdAndOwnerId(1L, userId)).thenReturn(Optional.of(card));
 
-        cardService.lockCard(username, 1L);
+        cardService.lockCard(userId, 1L);
 
         assertEquals(CardStatus.BLOCKED, card.getStatus());
         verify(cardRepository).save(card);
@@ -101,8 +280,46 @@ class CardServiceTest {
     @Test
     @DisplayName("Ошибка перевода: Отрицательная сумма")
     void transfer_NegativeAmount() {
-        assertThrows(IllegalArgumentException.class, () ->
-                cardService.transferBetweenOwnCards("user", 1L, 2L, new BigDecimal("-50.00"))
+        assertThrows(BadRequestException.class, () ->
+                cardService.transferBetweenOwnCards(1L, 1L, 2L, new BigDecimal("-50.00"))
+        );
+    }
+
+    @Test
+    @DisplayName("Ошибка перевода: Карта списания совпадает с картой зачисления")
+    void transfer_SameCard() {
+        assertThrows(BadRequestException.class, () ->
+                cardService.transferBetweenOwnCards(1L, 1L, 1L, new BigDecimal("10.00"))
         );
+        verifyNoInteractions(cardRepository, cardLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("Пакетный перевод: перевод на ту же карту отклоняется, остальные выполняются")
+    void transferBatch_SameCard_ShouldFailOnlyThatItem() {
+        Long userId = 1L;
+        Card first = Card.builder().id(1L).balance(new BigDecimal("100.00")).status(CardStatus.ACTIVE).build();
+        Card second = Card.builder().id(2L).balance(new BigDecimal("50.00")).status(CardStatus.ACTIVE).build();
+        when(cardRepository.findAllForTransfer(Set.of(1L, 2L), userId)).thenReturn(List.of(first, second));
+
+        List<TransferResultDTO> results = cardService.transferBatch(userId, List.of(
+                transfer(1L, 1L, "10.00"),
+                transfer(1L, 2L, "10.00")
+        ));
+
+        assertEquals(List.of(false, true), results.stream().map(TransferResultDTO::isSuccess).toList());
+        assertEquals("Карты списания и зачисления должны различаться", results.get(0).getError());
+        verify(cardRepository).applyBalanceDeltas(Map.of(
+                1L, new BigDecimal("-10.00"),
+                2L, new BigDecimal("10.00")
+        ));
+    }
+
+    private static TransferRequest transfer(Long from, Long to, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        return request;
     }
 }
\ No newline at end of file
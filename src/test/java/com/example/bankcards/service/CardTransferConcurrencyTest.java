@@ -0,0 +1,172 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочная проверка переводов: 64 потока гоняют деньги между картами
+ * в обе стороны, итоговая сумма балансов должна сохраниться.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class CardTransferConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final int CARDS = 6;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> cardIds = new ArrayList<>();
+    private Long ownerId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder()
+                .username("stress_user")
+                .password("password")
+                .role(Role.USER)
+                .build());
+        ownerId = owner.getId();
+
+        for (int i = 0; i < CARDS; i++) {
+            Card card = cardRepository.save(Card.builder()
+                    .cardNumber("400000000000000" + i)
+                    .ownerName(owner.getUsername())
+                    .balance(INITIAL_BALANCE)
+                    .status(CardStatus.ACTIVE)
+                    .expiryDate(LocalDate.now().plusYears(1))
+                    .owner(owner)
+                    .build());
+            cardIds.add(card.getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Встречные параллельные переводы сохраняют сумму балансов и не блокируют друг друга")
+    void concurrentTransfers_ShouldConserveBalances() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    // перевод на ту же карту отклоняется, поэтому карта зачисления всегда другая
+                    int from = random.nextInt(CARDS);
+                    int to = (from + random.nextInt(1, CARDS)) % CARDS;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 500_00), 2);
+                    try {
+                        cardService.transferBetweenOwnCards(ownerId, cardIds.get(from), cardIds.get(to), amount);
+                        completed.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Переводы не завершились — возможна взаимная блокировка");
+
+        assertTrue(failures.isEmpty(), () -> "Неожиданные ошибки: " + failures);
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed.get() + rejected.get());
+
+        List<Card> cards = cardRepository.findAllById(cardIds);
+        BigDecimal total = cards.stream().map(Card::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(total));
+        cards.forEach(card -> assertTrue(card.getBalance().signum() >= 0, "Отрицательный баланс на карте " + card.getId()));
+    }
+
+    @Test
+    @DisplayName("Параллельные пакетные переводы сохраняют сумму балансов")
+    void concurrentBatchTransfers_ShouldConserveBalances() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<TransferRequest> batch = new ArrayList<>();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARDS);
+                    TransferRequest request = new TransferRequest();
+                    request.setFromCardId(cardIds.get(from));
+                    request.setToCardId(cardIds.get((from + random.nextInt(1, CARDS)) % CARDS));
+                    request.setAmount(BigDecimal.valueOf(random.nextInt(1, 500_00), 2));
+                    batch.add(request);
+                }
+                try {
+                    cardService.transferBatch(ownerId, batch);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Переводы не завершились — возможна взаимная блокировка");
+        assertTrue(failures.isEmpty(), () -> "Неожиданные ошибки: " + failures);
+
+        List<Card> cards = cardRepository.findAllById(cardIds);
+        BigDecimal total = cards.stream().map(Card::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(total));
+        cards.forEach(card -> assertTrue(card.getBalance().signum() >= 0, "Отрицательный баланс на карте " + card.getId()));
+    }
+}
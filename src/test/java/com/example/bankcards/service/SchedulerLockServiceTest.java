@@ -0,0 +1,78 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bankcards.AbstractPostgresTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Блокировка проверяется на PostgreSQL: таблица scheduler_locks создается Liquibase-миграцией.
+ * Два экземпляра сервиса с разными nodeId играют роль двух реплик.
+ */
+class SchedulerLockServiceTest extends AbstractPostgresTest {
+
+    private static final String JOB = "test-job";
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SchedulerLockService nodeA;
+    private SchedulerLockService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM scheduler_locks");
+        nodeA = new SchedulerLockService(jdbcTemplate, "node-a");
+        nodeB = new SchedulerLockService(jdbcTemplate, "node-b");
+    }
+
+    @Test
+    @DisplayName("Действующую аренду получает только один узел")
+    void tryAcquire_ShouldBeExclusive() {
+        assertTrue(nodeA.tryAcquire(JOB, LEASE));
+        assertFalse(nodeB.tryAcquire(JOB, LEASE));
+        assertTrue(nodeA.renew(JOB, LEASE));
+        assertFalse(nodeB.renew(JOB, LEASE));
+    }
+
+    @Test
+    @DisplayName("После освобождения задачу может взять другой узел, когда прошло lockAtLeastFor")
+    void release_ShouldAllowOtherNode() {
+        assertTrue(nodeA.tryAcquire(JOB, LEASE));
+
+        nodeA.release(JOB, Duration.ZERO);
+
+        assertTrue(nodeB.tryAcquire(JOB, LEASE));
+    }
+
+    @Test
+    @DisplayName("Быструю задачу опоздавший узел не повторяет, пока не прошло lockAtLeastFor от захвата")
+    void release_ShouldHoldSlotForLockAtLeastFor() throws InterruptedException {
+        assertTrue(nodeA.tryAcquire(JOB, LEASE));
+
+        nodeA.release(JOB, Duration.ofMillis(300));
+
+        assertFalse(nodeB.tryAcquire(JOB, LEASE));
+        Thread.sleep(400);
+        assertTrue(nodeB.tryAcquire(JOB, LEASE));
+    }
+
+    @Test
+    @DisplayName("Истекшую аренду упавшего узла забирает другой, прежний владелец не может ее продлить")
+    void tryAcquire_ShouldTakeOverStaleLock() throws InterruptedException {
+        assertTrue(nodeA.tryAcquire(JOB, Duration.ofMillis(50)));
+        Thread.sleep(100);
+
+        assertTrue(nodeB.tryAcquire(JOB, LEASE));
+        assertFalse(nodeA.renew(JOB, LEASE));
+    }
+}
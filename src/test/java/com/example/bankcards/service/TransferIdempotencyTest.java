@@ -0,0 +1,170 @@
+package com.example.bankcards.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.bankcards.AbstractPostgresTest;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+import com.example.bankcards.exception.InsufficientFundsException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Идемпотентные переводы на PostgreSQL: ответ из кэша узла, из таблицы ключей (как на другой реплике),
+ * конкурентные повторы и очистка истекших ключей.
+ */
+class TransferIdempotencyTest extends AbstractPostgresTest {
+
+    @Autowired
+    private TransferIdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long from;
+    private Long to;
+
+    @BeforeEach
+    void setUp() {
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password, role) VALUES ('idempotent', 'x', 'USER') RETURNING id", Long.class);
+        from = insertCard("100.00");
+        to = insertCard("0.00");
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyService.evictCache();
+        jdbcTemplate.update("DELETE FROM transfer_idempotency_keys");
+        jdbcTemplate.update("DELETE FROM card_ledger");
+        jdbcTemplate.update("DELETE FROM cards");
+        jdbcTemplate.update("DELETE FROM users WHERE username <> 'admin'");
+    }
+
+    @Test
+    @DisplayName("Повтор на том же узле отвечает из кэша, не обращаясь к таблице ключей")
+    void repeat_ShouldBeAnsweredFromCache() {
+        assertEquals(TransferIdempotencyService.TRANSFER_DONE, idempotencyService.transfer(userId, "k-1", request("30.00")));
+        // без кэша повтор вставил бы ключ заново и списал деньги второй раз
+        jdbcTemplate.update("DELETE FROM transfer_idempotency_keys");
+
+        assertEquals(TransferIdempotencyService.TRANSFER_DONE, idempotencyService.transfer(userId, "k-1", request("30.00")));
+
+        assertEquals(new BigDecimal("70.00"), balance(from));
+    }
+
+    @Test
+    @DisplayName("Повтор на другой реплике находит ключ в таблице и не списывает деньги повторно")
+    void repeat_ShouldBeAnsweredFromTable() {
+        idempotencyService.transfer(userId, "k-1", request("30.00"));
+        idempotencyService.evictCache();
+
+        assertEquals(TransferIdempotencyService.TRANSFER_DONE, idempotencyService.transfer(userId, "k-1", request("30.00")));
+
+        assertEquals(new BigDecimal("70.00"), balance(from));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_ledger", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы с одним ключом выполняют перевод ровно один раз")
+    void concurrentRepeats_ShouldTransferOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return idempotencyService.transfer(userId, "k-race", request("10.00"));
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals(TransferIdempotencyService.TRANSFER_DONE, result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(new BigDecimal("90.00"), balance(from));
+        assertEquals(new BigDecimal("10.00"), balance(to));
+    }
+
+    @Test
+    @DisplayName("Ключ другого перевода отклоняется, даже если он уже в кэше")
+    void reuseWithOtherRequest_ShouldBeRejected() {
+        idempotencyService.transfer(userId, "k-1", request("30.00"));
+
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> idempotencyService.transfer(userId, "k-1", request("31.00")));
+        idempotencyService.evictCache();
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> idempotencyService.transfer(userId, "k-1", request("31.00")));
+        // тот же перевод с другой записью суммы — не другой запрос
+        assertEquals(TransferIdempotencyService.TRANSFER_DONE, idempotencyService.transfer(userId, "k-1", request("30")));
+        assertEquals(new BigDecimal("70.00"), balance(from));
+    }
+
+    @Test
+    @DisplayName("Неуспешный перевод не сохраняет ключ: повтор выполняется заново")
+    void failedTransfer_ShouldNotKeepKey() {
+        assertThrows(InsufficientFundsException.class,
+                () -> idempotencyService.transfer(userId, "k-1", request("150.00")));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfer_idempotency_keys", Integer.class));
+
+        jdbcTemplate.update("UPDATE cards SET balance = 200.00 WHERE id = ?", from);
+
+        assertEquals(TransferIdempotencyService.TRANSFER_DONE, idempotencyService.transfer(userId, "k-1", request("150.00")));
+        assertEquals(new BigDecimal("50.00"), balance(from));
+    }
+
+    @Test
+    @DisplayName("Очистка порциями удаляет только ключи старше границы")
+    void purgeBefore_ShouldDeleteExpiredKeysInChunks() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        jdbcTemplate.update("INSERT INTO transfer_idempotency_keys " +
+                "(user_id, idempotency_key, request_fingerprint, response, created_at) " +
+                "SELECT ?, 'old-' || g, '1:2:1', 'ok', ? FROM generate_series(1, 2500) g", userId, now.minusDays(2));
+        idempotencyService.transfer(userId, "fresh", request("1.00"));
+
+        long deleted = idempotencyService.purgeBefore(now.minusDays(1));
+
+        assertEquals(2500, deleted);
+        assertEquals(List.of("fresh"), jdbcTemplate.queryForList(
+                "SELECT idempotency_key FROM transfer_idempotency_keys", String.class));
+    }
+
+    private TransferRequest request(String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private BigDecimal balance(Long cardId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM cards WHERE id = ?", BigDecimal.class, cardId);
+    }
+
+    private Long insertCard(String balance) {
+        return jdbcTemplate.queryForObject("INSERT INTO cards (card_number, card_last4, card_number_hash, owner_name, " +
+                        "balance, status, expiry_date, user_id) VALUES ('enc', '0000', 'hash', 'IDEMPOTENT', ?, 'ACTIVE', " +
+                        "current_date + 365, ?) RETURNING id",
+                Long.class, new BigDecimal(balance), userId);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.bankcards.AbstractPostgresTest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CardNumberBlindIndexTest {
+
+    private final CardNumberBlindIndex blindIndex = new CardNumberBlindIndex(AbstractPostgresTest.BLIND_INDEX_KEY);
+
+    @Test
+    @DisplayName("Слепой индекс детерминирован и не зависит от форматирования номера")
+    void hash_ShouldBeDeterministicAndNormalized() {
+        String hash = blindIndex.hash("4000123412341234");
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, blindIndex.hash("4000 1234-1234 1234"));
+        assertNotEquals(hash, blindIndex.hash("4000123412341235"));
+    }
+
+    @Test
+    @DisplayName("Для пустого номера индекс не вычисляется")
+    void hash_Empty_ShouldReturnNull() {
+        assertNull(blindIndex.hash(null));
+        assertNull(blindIndex.hash(" "));
+    }
+
+    @Test
+    @DisplayName("Индекс и отпечаток зависят от ключа, экземпляры с разными ключами независимы")
+    void hash_ShouldDependOnKey() {
+        CardNumberBlindIndex other = new CardNumberBlindIndex("00".repeat(32));
+
+        assertNotEquals(blindIndex.hash("4000123412341234"), other.hash("4000123412341234"));
+        assertNotEquals(blindIndex.fingerprint(), other.fingerprint());
+        assertEquals(blindIndex.fingerprint(),
+                new CardNumberBlindIndex(AbstractPostgresTest.BLIND_INDEX_KEY.toLowerCase()).fingerprint());
+        assertEquals(32, blindIndex.fingerprint().length());
+    }
+
+    @Test
+    @DisplayName("Короткий или не hex ключ отклоняется при запуске")
+    void constructor_InvalidKey_ShouldFail() {
+        assertThrows(IllegalStateException.class, () -> new CardNumberBlindIndex("00".repeat(16)));
+        assertThrows(IllegalStateException.class, () -> new CardNumberBlindIndex("not-a-hex-key"));
+    }
+}
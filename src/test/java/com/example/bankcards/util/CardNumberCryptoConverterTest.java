@@ -0,0 +1,70 @@
+package com.example.bankcards.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+class CardNumberCryptoConverterTest {
+
+    private final CardNumberCryptoConverter converter = new CardNumberCryptoConverter();
+
+    @Test
+    @DisplayName("Шифрование и расшифровка номера карты взаимно обратны")
+    void roundTrip_ShouldRestoreCardNumber() {
+        String encrypted = converter.convertToDatabaseColumn("1234567812345678");
+
+        assertNotEquals("1234567812345678", encrypted);
+        assertEquals("1234567812345678", converter.convertToEntityAttribute(encrypted));
+        assertNull(converter.convertToDatabaseColumn(" "));
+    }
+
+    @Test
+    @DisplayName("Пул шифров дает тот же шифротекст, что и создание Cipher на каждый вызов")
+    void encrypt_ShouldMatchPerCallCipher() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec("1234567890123456".getBytes(), "AES"));
+        String expected = Base64.getEncoder().encodeToString(cipher.doFinal("4000123412341234".getBytes()));
+
+        assertEquals(expected, converter.convertToDatabaseColumn("4000123412341234"));
+    }
+
+    @Test
+    @DisplayName("Незашифрованное значение возвращается как есть, пул остается рабочим")
+    void decrypt_PlainValue_ShouldReturnAsIs() {
+        assertEquals("not-encrypted", converter.convertToEntityAttribute("not-encrypted"));
+        assertEquals("5555", converter.convertToEntityAttribute(converter.convertToDatabaseColumn("5555")));
+    }
+
+    @Test
+    @DisplayName("Параллельное шифрование не смешивает состояние шифров")
+    void concurrentRoundTrip_ShouldBeThreadSafe() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<Boolean>> tasks = IntStream.range(0, 2_000)
+                    .mapToObj(i -> (Callable<Boolean>) () -> {
+                        String number = String.format("4000%012d", i);
+                        return number.equals(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(number)));
+                    })
+                    .toList();
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertEquals(true, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}